@@ -0,0 +1,190 @@
+package de.rieckpil.courses.book.management;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Bounds the number of concurrent calls with an AIMD (additive increase, multiplicative decrease)
+ * limit. The limit grows by one whenever a call succeeds fast enough while the limit is in use, and
+ * shrinks by the backoff ratio when a call fails or exceeds the latency threshold. Errors that are
+ * not recorded as failures, e.g. client errors, leave the limit as is. Calls above the limit wait
+ * in a bounded queue, calls that don't fit into the queue are rejected.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  private static final double BACKOFF_RATIO = 0.9;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final int maxQueueDepth;
+  private final long latencyThresholdNanos;
+  private final Predicate<Throwable> recordFailure;
+
+  private final Deque<Permit> waiting = new ArrayDeque<>();
+  private double limit;
+  private int inFlight;
+  private long rejections;
+
+  public AdaptiveConcurrencyLimiter(
+      int initialLimit,
+      int minLimit,
+      int maxLimit,
+      int maxQueueDepth,
+      Duration latencyThreshold,
+      Predicate<Throwable> recordFailure) {
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.maxQueueDepth = maxQueueDepth;
+    this.latencyThresholdNanos = latencyThreshold.toNanos();
+    this.recordFailure = recordFailure;
+  }
+
+  public <T> Mono<T> limit(Mono<T> call) {
+    return Mono.defer(
+        () -> {
+          Permit permit = new Permit();
+          return acquire(permit)
+              .then(
+                  Mono.defer(
+                      () -> {
+                        if (!permit.claim()) {
+                          return Mono.<T>empty();
+                        }
+
+                        long startedAt = System.nanoTime();
+                        return call.doOnError(error -> permit.failed = recordFailure.test(error))
+                            .doFinally(
+                                signal ->
+                                    release(signal, permit.failed, System.nanoTime() - startedAt));
+                      }));
+        });
+  }
+
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  public synchronized int getQueueDepth() {
+    return waiting.size();
+  }
+
+  public synchronized long getRejections() {
+    return rejections;
+  }
+
+  private Mono<Void> acquire(Permit permit) {
+    return Mono.create(
+        sink -> {
+          permit.sink = sink;
+          sink.onCancel(() -> cancel(permit));
+
+          boolean acquired = false;
+          boolean rejected = false;
+
+          synchronized (this) {
+            if (inFlight < (int) limit) {
+              inFlight++;
+              permit.granted = true;
+              acquired = true;
+            } else if (waiting.size() < maxQueueDepth) {
+              waiting.add(permit);
+            } else {
+              rejections++;
+              rejected = true;
+            }
+          }
+
+          if (acquired) {
+            sink.success();
+          } else if (rejected) {
+            sink.error(new OpenLibraryUnavailableException("Concurrency limit exceeded"));
+          }
+        });
+  }
+
+  private void cancel(Permit permit) {
+    synchronized (this) {
+      if (waiting.remove(permit) || !permit.granted) {
+        return;
+      }
+    }
+
+    // cancelled between admission and subscription of the call, hand the permit back
+    if (permit.claim()) {
+      List<Permit> admitted;
+
+      synchronized (this) {
+        inFlight--;
+        admitted = admitWaiting();
+      }
+
+      admitted.forEach(Permit::grant);
+    }
+  }
+
+  private void release(SignalType signal, boolean failed, long latencyNanos) {
+    List<Permit> admitted;
+
+    synchronized (this) {
+      inFlight--;
+
+      if (failed || latencyNanos > latencyThresholdNanos) {
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+      } else if (signal == SignalType.ON_COMPLETE && (inFlight + 1) * 2 >= limit) {
+        limit = Math.min(maxLimit, limit + 1);
+      }
+
+      admitted = admitWaiting();
+    }
+
+    admitted.forEach(Permit::grant);
+  }
+
+  private List<Permit> admitWaiting() {
+    List<Permit> admitted = new ArrayList<>();
+
+    while (inFlight < (int) limit && !waiting.isEmpty()) {
+      Permit permit = waiting.poll();
+      inFlight++;
+      permit.granted = true;
+      admitted.add(permit);
+    }
+
+    return admitted;
+  }
+
+  /**
+   * A single call's claim on the limiter. {@code granted} is guarded by the limiter's lock, {@code
+   * claimed} decides whether the call itself or its cancellation returns the permit. {@code failed}
+   * is set by the call's error signal right before the permit is released.
+   */
+  private static final class Permit {
+
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private MonoSink<Void> sink;
+    private boolean granted;
+    private boolean failed;
+
+    boolean claim() {
+      return claimed.compareAndSet(false, true);
+    }
+
+    void grant() {
+      sink.success();
+    }
+  }
+}
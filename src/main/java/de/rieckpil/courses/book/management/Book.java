@@ -12,7 +12,8 @@ public class Book {
 
   @Id
   @JsonIgnore
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+  @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
   private Long id;
 
   @Column(nullable = false)
@@ -104,6 +105,21 @@ public class Book {
     this.pages = pages;
   }
 
+  /** A detached copy, for handing out books that are shared through a cache. */
+  public Book copy() {
+    Book copy = new Book();
+    copy.setId(id);
+    copy.setTitle(title);
+    copy.setIsbn(isbn);
+    copy.setAuthor(author);
+    copy.setGenre(genre);
+    copy.setThumbnailUrl(thumbnailUrl);
+    copy.setDescription(description);
+    copy.setPublisher(publisher);
+    copy.setPages(pages);
+    return copy;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -0,0 +1,49 @@
+package de.rieckpil.courses.book.management;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The version of the book catalog, so that conditional requests can be answered without reading
+ * the books. A trigger on the books table increments the version when a transaction changing them
+ * commits, all application instances derive the same ETag from it.
+ *
+ * <p>The version is held in memory and refreshed periodically, so requests don't touch the
+ * database for it. A change shows in the ETags within {@code
+ * books.catalog-version.refresh-interval}.
+ */
+@Component
+public class BookCatalogVersion {
+
+  private static final long UNKNOWN = -1;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private volatile long version = UNKNOWN;
+
+  public BookCatalogVersion(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public long current() {
+    long current = version;
+    return current == UNKNOWN ? read() : current;
+  }
+
+  @Scheduled(fixedDelayString = "${books.catalog-version.refresh-interval:1s}")
+  public void refresh() {
+    read();
+  }
+
+  private long read() {
+    long current =
+        jdbcTemplate.queryForObject("SELECT version FROM book_catalog_version", Long.class);
+    this.version = current;
+    return current;
+  }
+
+  public static String toETag(long version) {
+    return "\"books-" + version + "\"";
+  }
+}
@@ -1,23 +1,91 @@
 package de.rieckpil.courses.book.management;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
 
   private final BookManagementService bookManagementService;
+  private final ObjectMapper objectMapper;
 
-  public BookController(BookManagementService bookManagementService) {
+  public BookController(BookManagementService bookManagementService, ObjectMapper objectMapper) {
     this.bookManagementService = bookManagementService;
+    this.objectMapper = objectMapper;
   }
 
   @GetMapping
-  public List<Book> getAvailableBooks() {
-    return bookManagementService.getAllBooks();
+  public ResponseEntity<List<Book>> getAvailableBooks(
+      @RequestParam(name = "after", required = false) Long after,
+      @RequestParam(name = "limit", required = false) Integer limit,
+      WebRequest webRequest) {
+
+    long catalogVersion = bookManagementService.getCatalogVersion();
+
+    // answers polling clients without reading the books while the catalog is unchanged
+    if (webRequest.checkNotModified(BookCatalogVersion.toETag(catalogVersion))) {
+      return null;
+    }
+
+    if (after == null && limit == null) {
+      return ResponseEntity.ok(bookManagementService.getAllBooks());
+    }
+
+    List<Book> books = bookManagementService.getBooksAfter(catalogVersion, after, limit);
+
+    if (books.isEmpty()) {
+      return ResponseEntity.ok(books);
+    }
+
+    String nextPage =
+        ServletUriComponentsBuilder.fromCurrentRequest()
+            .replaceQueryParam("after", books.get(books.size() - 1).getId())
+            .build()
+            .toUriString();
+
+    return ResponseEntity.ok()
+        .header(HttpHeaders.LINK, "<" + nextPage + ">; rel=\"next\"")
+        .body(books);
+  }
+
+  @GetMapping(params = "stream=true")
+  public ResponseEntity<StreamingResponseBody> streamAvailableBooks(WebRequest webRequest) {
+    if (webRequest.checkNotModified(
+        BookCatalogVersion.toETag(bookManagementService.getCatalogVersion()))) {
+      return null;
+    }
+
+    StreamingResponseBody body =
+        outputStream -> {
+          try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.writeStartArray();
+            bookManagementService.streamAllBooks(
+                book -> {
+                  try {
+                    generator.writeObject(book);
+                  } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                });
+            generator.writeEndArray();
+          }
+        };
+
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
   }
 }
@@ -1,19 +1,88 @@
 package de.rieckpil.courses.book.management;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import jakarta.persistence.EntityManager;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class BookManagementService {
 
+  public static final int DEFAULT_PAGE_SIZE = 50;
+  public static final int MAX_PAGE_SIZE = 500;
+
   private final BookRepository bookRepository;
+  private final EntityManager entityManager;
+  private final BookCatalogVersion bookCatalogVersion;
+  private final Cache bookPages;
 
-  public BookManagementService(BookRepository bookRepository) {
+  public BookManagementService(
+      BookRepository bookRepository,
+      EntityManager entityManager,
+      BookCatalogVersion bookCatalogVersion,
+      CacheManager cacheManager) {
     this.bookRepository = bookRepository;
+    this.entityManager = entityManager;
+    this.bookCatalogVersion = bookCatalogVersion;
+    this.bookPages = cacheManager.getCache("books");
+  }
+
+  /**
+   * Must be read before the books. The version is part of the cache keys, so a list that was read
+   * before a change is never served for the version of that change.
+   */
+  public long getCatalogVersion() {
+    return bookCatalogVersion.current();
   }
 
+  /** Not cached, the whole catalog would sit in the heap as a single entry. */
   public List<Book> getAllBooks() {
     return bookRepository.findAll();
   }
+
+  /**
+   * Pages are cached per catalog version, each caller gets its own copies of the cached books so
+   * that changes to them can't leak into the cache.
+   */
+  public List<Book> getBooksAfter(long catalogVersion, Long after, Integer limit) {
+    BookPageKey key =
+        new BookPageKey(
+            catalogVersion,
+            after == null ? 0L : after,
+            limit == null ? DEFAULT_PAGE_SIZE : Math.clamp(limit, 1, MAX_PAGE_SIZE));
+
+    List<Book> page =
+        bookPages.get(
+            key,
+            () ->
+                List.copyOf(
+                    bookRepository.findByIdGreaterThanOrderByIdAsc(
+                        key.after(), Limit.of(key.pageSize()))));
+
+    return page.stream().map(Book::copy).toList();
+  }
+
+  /**
+   * Hands every book to the consumer one by one while the rows are read from a database cursor.
+   * Each entity is detached right after it was consumed, so the persistence context doesn't grow
+   * with the size of the catalog.
+   */
+  @Transactional(readOnly = true)
+  public void streamAllBooks(Consumer<Book> consumer) {
+    try (Stream<Book> books = bookRepository.streamAllByOrderByIdAsc()) {
+      books.forEach(
+          book -> {
+            consumer.accept(book);
+            entityManager.detach(book);
+          });
+    }
+  }
+
+  private record BookPageKey(long catalogVersion, long after, int pageSize) {}
 }
@@ -1,7 +1,108 @@
 package de.rieckpil.courses.book.management;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
-  Book findByIsbn(String isbn);
+
+  /** Each caller gets its own copy, changes to it can't leak into the cache. */
+  default Book findByIsbn(String isbn) {
+    Book book = findCachedByIsbn(isbn);
+    return book == null ? null : book.copy();
+  }
+
+  // invoked through the repository proxy by findByIsbn, so the cache applies
+  @Cacheable(cacheNames = "book-by-isbn", unless = "#result == null")
+  @Query("SELECT b FROM Book b WHERE b.isbn = :isbn")
+  Book findCachedByIsbn(@Param("isbn") String isbn);
+
+  @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+  Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+  List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "250"))
+  Stream<Book> streamAllByOrderByIdAsc();
+
+  /**
+   * Idempotent insert for concurrent synchronizations of the same ISBN.
+   *
+   * @return 1 if the book was stored, 0 if a book with the same ISBN already exists
+   */
+  @Modifying
+  @Transactional
+  @CacheEvict(cacheNames = {"books", "book-by-isbn"}, allEntries = true)
+  @Query(
+      value =
+          "INSERT INTO books "
+              + "(title, isbn, author, genre, thumbnail_url, description, publisher, pages) "
+              + "VALUES (:#{#book.title}, :#{#book.isbn}, :#{#book.author}, :#{#book.genre}, "
+              + ":#{#book.thumbnailUrl}, :#{#book.description}, :#{#book.publisher}, "
+              + ":#{#book.pages}) "
+              + "ON CONFLICT (isbn) DO NOTHING",
+      nativeQuery = true)
+  int insertIfAbsent(@Param("book") Book book);
+
+  // any write to the catalog invalidates the cached reads
+  @Override
+  @CacheEvict(cacheNames = {"books", "book-by-isbn"}, allEntries = true)
+  <S extends Book> S save(S book);
+
+  @Override
+  @CacheEvict(cacheNames = {"books", "book-by-isbn"}, allEntries = true)
+  <S extends Book> List<S> saveAll(Iterable<S> books);
+
+  @Override
+  @CacheEvict(cacheNames = {"books", "book-by-isbn"}, allEntries = true)
+  <S extends Book> S saveAndFlush(S book);
+
+  @Override
+  @CacheEvict(cacheNames = {"books", "book-by-isbn"}, allEntries = true)
+  <S extends Book> List<S> saveAllAndFlush(Iterable<S> books);
+
+  @Override
+  @CacheEvict(cacheNames = {"books", "book-by-isbn"}, allEntries = true)
+  void delete(Book book);
+
+  @Override
+  @CacheEvict(cacheNames = {"books", "book-by-isbn"}, allEntries = true)
+  void deleteById(Long id);
+
+  @Override
+  @CacheEvict(cacheNames = {"books", "book-by-isbn"}, allEntries = true)
+  void deleteAllById(Iterable<? extends Long> ids);
+
+  @Override
+  @CacheEvict(cacheNames = {"books", "book-by-isbn"}, allEntries = true)
+  void deleteAll(Iterable<? extends Book> books);
+
+  @Override
+  @CacheEvict(cacheNames = {"books", "book-by-isbn"}, allEntries = true)
+  void deleteAllInBatch(Iterable<Book> books);
+
+  @Override
+  @CacheEvict(cacheNames = {"books", "book-by-isbn"}, allEntries = true)
+  void deleteAllByIdInBatch(Iterable<Long> ids);
+
+  @Override
+  @CacheEvict(cacheNames = {"books", "book-by-isbn"}, allEntries = true)
+  void deleteAllInBatch();
+
+  @Override
+  @CacheEvict(cacheNames = {"books", "book-by-isbn"}, allEntries = true)
+  void deleteAll();
 }
@@ -0,0 +1,103 @@
+package de.rieckpil.courses.book.management;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import io.awspring.cloud.sqs.annotation.SqsListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Alternative to the {@link BookSynchronizationListener} that consumes the synchronization queue
+ * in batches. A batch costs one existence query, one OpenLibrary request and one {@code saveAll}
+ * no matter how many messages it contains.
+ */
+@Component
+@ConditionalOnProperty(name = "sqs.book-synchronization-batch.enabled", havingValue = "true")
+public class BookSynchronizationBatchListener {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(BookSynchronizationBatchListener.class.getName());
+
+  private final BookRepository bookRepository;
+  private final OpenLibraryApiClient openLibraryApiClient;
+  private final OpenLibraryNegativeCache openLibraryNegativeCache;
+
+  public BookSynchronizationBatchListener(
+      BookRepository bookRepository,
+      OpenLibraryApiClient openLibraryApiClient,
+      OpenLibraryNegativeCache openLibraryNegativeCache) {
+    this.bookRepository = bookRepository;
+    this.openLibraryApiClient = openLibraryApiClient;
+    this.openLibraryNegativeCache = openLibraryNegativeCache;
+  }
+
+  @SqsListener(
+      value = "${sqs.book-synchronization-queue}",
+      maxMessagesPerPoll = "${sqs.book-synchronization-batch.max-size:10}",
+      maxConcurrentMessages = "${sqs.book-synchronization-batch.max-concurrent-messages:50}")
+  public CompletableFuture<Void> consumeBookUpdates(
+      List<BookSynchronization> bookSynchronizations) {
+
+    LOG.info("Incoming batch of {} book update(s)", bookSynchronizations.size());
+
+    Set<String> isbns = new LinkedHashSet<>();
+
+    for (BookSynchronization bookSynchronization : bookSynchronizations) {
+      String isbn = bookSynchronization.isbn();
+      if (isbn.length() != 13) {
+        LOG.warn("Incoming isbn '{}' for book is not 13 characters long, rejecting it", isbn);
+      } else if (openLibraryNegativeCache.isKnownMissing(isbn)) {
+        LOG.debug("OpenLibrary has no metadata for isbn '{}', rejecting it", isbn);
+      } else {
+        isbns.add(isbn);
+      }
+    }
+
+    if (!isbns.isEmpty()) {
+      isbns.removeAll(bookRepository.findExistingIsbns(isbns));
+    }
+
+    if (isbns.isEmpty()) {
+      LOG.debug("All books of the batch are already present, nothing to store");
+      return CompletableFuture.completedFuture(null);
+    }
+
+    // the listener thread is free again while OpenLibrary is queried, the batch is acknowledged
+    // once the returned future completes
+    return openLibraryApiClient
+        .fetchMetadataForBooksAsync(isbns)
+        .collectMap(Book::getIsbn)
+        // the response arrives on an event loop thread, which must not block on JDBC
+        .publishOn(Schedulers.boundedElastic())
+        .doOnNext(books -> storeBooks(isbns, books))
+        .then()
+        .toFuture();
+  }
+
+  private void storeBooks(Set<String> isbns, Map<String, Book> books) {
+    if (books.size() < isbns.size()) {
+      isbns.removeAll(books.keySet());
+      LOG.warn("No metadata available for isbn(s) {}, skipping them", isbns);
+      isbns.forEach(openLibraryNegativeCache::recordMissing);
+    }
+
+    int storedBooks;
+
+    try {
+      storedBooks = bookRepository.saveAll(books.values()).size();
+    } catch (DataIntegrityViolationException e) {
+      LOG.debug("Batch conflicts with a concurrent synchronization, storing books one by one");
+      storedBooks = books.values().stream().mapToInt(bookRepository::insertIfAbsent).sum();
+    }
+
+    LOG.info("Successfully stored {} new book(s)", storedBooks);
+  }
+}
@@ -1,43 +1,118 @@
 package de.rieckpil.courses.book.management;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
 import io.awspring.cloud.sqs.annotation.SqsListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Component
+@ConditionalOnProperty(
+    name = "sqs.book-synchronization-batch.enabled",
+    havingValue = "false",
+    matchIfMissing = true)
 public class BookSynchronizationListener {
 
   private static final Logger LOG =
       LoggerFactory.getLogger(BookSynchronizationListener.class.getName());
 
   private final BookRepository bookRepository;
-  private final OpenLibraryApiClient openLibraryApiClient;
+  private final OpenLibraryBatchLoader openLibraryBatchLoader;
+  private final OpenLibraryNegativeCache openLibraryNegativeCache;
+
+  // concurrent messages for the same ISBN wait for the synchronization already in flight
+  private final Map<String, CompletableFuture<Void>> inFlightSynchronizations =
+      new ConcurrentHashMap<>();
 
   public BookSynchronizationListener(
-      BookRepository bookRepository, OpenLibraryApiClient openLibraryApiClient) {
+      BookRepository bookRepository,
+      OpenLibraryBatchLoader openLibraryBatchLoader,
+      OpenLibraryNegativeCache openLibraryNegativeCache) {
     this.bookRepository = bookRepository;
-    this.openLibraryApiClient = openLibraryApiClient;
+    this.openLibraryBatchLoader = openLibraryBatchLoader;
+    this.openLibraryNegativeCache = openLibraryNegativeCache;
   }
 
+  /**
+   * Completes once the book is stored, the listener thread is free again while OpenLibrary is
+   * queried. The message is acknowledged when the returned future completes successfully.
+   */
   @SqsListener("${sqs.book-synchronization-queue}")
-  public void consumeBookUpdates(BookSynchronization bookSynchronization) {
+  public CompletableFuture<Void> consumeBookUpdates(BookSynchronization bookSynchronization) {
 
     String isbn = bookSynchronization.isbn();
     LOG.info("Incoming book update for isbn '{}'", isbn);
 
     if (isbn.length() != 13) {
       LOG.warn("Incoming isbn for book is not 13 characters long, rejecting it");
-      return;
+      return CompletableFuture.completedFuture(null);
     }
 
-    if (bookRepository.findByIsbn(isbn) != null) {
-      LOG.debug("Book with isbn '{}' is already present, rejecting it", isbn);
-      return;
+    if (openLibraryNegativeCache.isKnownMissing(isbn)) {
+      LOG.debug("OpenLibrary has no metadata for isbn '{}', rejecting it", isbn);
+      return CompletableFuture.completedFuture(null);
     }
 
-    Book book = openLibraryApiClient.fetchMetadataForBook(isbn);
-    book = bookRepository.save(book);
+    CompletableFuture<Void> synchronization = new CompletableFuture<>();
+    CompletableFuture<Void> inFlightSynchronization =
+        inFlightSynchronizations.putIfAbsent(isbn, synchronization);
+
+    if (inFlightSynchronization != null) {
+      LOG.debug("Book with isbn '{}' is already being synchronized, waiting for it", isbn);
+      return inFlightSynchronization;
+    }
+
+    synchronizeBook(isbn)
+        .toFuture()
+        .whenComplete(
+            (result, error) -> {
+              inFlightSynchronizations.remove(isbn, synchronization);
+
+              if (error == null) {
+                synchronization.complete(null);
+              } else {
+                synchronization.completeExceptionally(error);
+              }
+            });
+
+    return synchronization;
+  }
+
+  private Mono<Void> synchronizeBook(String isbn) {
+    return Mono.defer(
+        () -> {
+          if (bookRepository.findByIsbn(isbn) != null) {
+            LOG.debug("Book with isbn '{}' is already present, rejecting it", isbn);
+            return Mono.empty();
+          }
+
+          return openLibraryBatchLoader
+              .fetchMetadataForBookAsync(isbn)
+              // the response arrives on an event loop thread, which must not block on JDBC
+              .publishOn(Schedulers.boundedElastic())
+              .doOnNext(this::storeBook)
+              .onErrorResume(
+                  OpenLibraryMetadataNotFoundException.class,
+                  e -> {
+                    LOG.warn("No metadata available for isbn '{}', skipping it", isbn);
+                    openLibraryNegativeCache.recordMissing(isbn);
+                    return Mono.empty();
+                  })
+              .then();
+        });
+  }
+
+  private void storeBook(Book book) {
+    if (bookRepository.insertIfAbsent(book) == 0) {
+      LOG.debug("Book with isbn '{}' was stored by a concurrent synchronization", book.getIsbn());
+      return;
+    }
 
     LOG.info("Successfully stored new book '{}'", book);
   }
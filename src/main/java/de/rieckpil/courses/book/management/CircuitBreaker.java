@@ -0,0 +1,116 @@
+package de.rieckpil.courses.book.management;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Predicate;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Fails calls fast once a number of consecutive calls failed. After the open duration a single
+ * trial call is let through: if it succeeds the circuit closes again, otherwise it stays open for
+ * another open duration.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED,
+    HALF_OPEN,
+    OPEN
+  }
+
+  private final int failureThreshold;
+  private final Duration openDuration;
+  private final Predicate<Throwable> recordFailure;
+  private final Clock clock;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private Instant openedAt;
+  private boolean trialInFlight;
+
+  public CircuitBreaker(
+      int failureThreshold,
+      Duration openDuration,
+      Predicate<Throwable> recordFailure,
+      Clock clock) {
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+    this.recordFailure = recordFailure;
+    this.clock = clock;
+  }
+
+  public <T> Mono<T> protect(Mono<T> call) {
+    return Mono.defer(
+        () -> {
+          if (!tryAcquirePermission()) {
+            return Mono.error(new OpenLibraryUnavailableException("Circuit breaker is open"));
+          }
+
+          return call.doOnSuccess(result -> onSuccess())
+              .doOnError(
+                  error -> {
+                    // a call rejected before reaching OpenLibraryRequestGuard, e.g. by the
+                    // concurrency limiter, says nothing about the health of OpenLibrary
+                    if (error instanceof OpenLibraryUnavailableException) {
+                      onCancel();
+                    } else {
+                      onError(error);
+                    }
+                  })
+              .doFinally(
+                  signal -> {
+                    if (signal == SignalType.CANCEL) {
+                      onCancel();
+                    }
+                  });
+        });
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  private synchronized boolean tryAcquirePermission() {
+    if (state == State.OPEN && !clock.instant().isBefore(openedAt.plus(openDuration))) {
+      state = State.HALF_OPEN;
+    }
+
+    if (state == State.HALF_OPEN) {
+      if (trialInFlight) {
+        return false;
+      }
+      trialInFlight = true;
+      return true;
+    }
+
+    return state == State.CLOSED;
+  }
+
+  private synchronized void onSuccess() {
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+    trialInFlight = false;
+  }
+
+  private synchronized void onError(Throwable error) {
+    if (!recordFailure.test(error)) {
+      onSuccess();
+      return;
+    }
+
+    consecutiveFailures++;
+    trialInFlight = false;
+
+    if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+      state = State.OPEN;
+      openedAt = clock.instant();
+    }
+  }
+
+  private synchronized void onCancel() {
+    trialInFlight = false;
+  }
+}
@@ -1,58 +1,133 @@
 package de.rieckpil.courses.book.management;
 
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import reactor.util.retry.Retry;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Component
 public class OpenLibraryApiClient {
 
   private final WebClient openLibraryWebClient;
+  private final OpenLibraryMetadataCache openLibraryMetadataCache;
+  private final OpenLibraryRequestGuard openLibraryRequestGuard;
+  private final OpenLibraryMetadataDecoder openLibraryMetadataDecoder =
+      new OpenLibraryMetadataDecoder();
 
   public OpenLibraryApiClient(WebClient openLibraryWebClient) {
+    this(
+        openLibraryWebClient,
+        OpenLibraryMetadataCache.disabled(),
+        OpenLibraryRequestGuard.withDefaults());
+  }
+
+  @Autowired
+  public OpenLibraryApiClient(
+      WebClient openLibraryWebClient,
+      OpenLibraryMetadataCache openLibraryMetadataCache,
+      OpenLibraryRequestGuard openLibraryRequestGuard) {
     this.openLibraryWebClient = openLibraryWebClient;
+    this.openLibraryMetadataCache = openLibraryMetadataCache;
+    this.openLibraryRequestGuard = openLibraryRequestGuard;
   }
 
   public Book fetchMetadataForBook(String isbn) {
+    return fetchMetadataForBookAsync(isbn).block();
+  }
+
+  public Mono<Book> fetchMetadataForBookAsync(String isbn) {
+    Optional<Book> cachedBook = getCachedBook(isbn);
+
+    if (cachedBook.isPresent()) {
+      return Mono.just(cachedBook.get());
+    }
+
+    return requestMetadata(isbn)
+        .map(
+            response ->
+                decodeAndCache(response, List.of(isbn)).stream()
+                    .findFirst()
+                    .orElseThrow(() -> new OpenLibraryMetadataNotFoundException(isbn)))
+        .switchIfEmpty(Mono.error(() -> new OpenLibraryMetadataNotFoundException(isbn)));
+  }
+
+  /**
+   * Fetches the metadata for all given ISBNs with a single request, as OpenLibrary accepts a
+   * comma-separated list of bibkeys. ISBNs OpenLibrary has no data for are missing in the result.
+   */
+  public Map<String, Book> fetchMetadataForBooks(Collection<String> isbns) {
+    return fetchMetadataForBooksAsync(isbns).collectMap(Book::getIsbn).block();
+  }
+
+  public Flux<Book> fetchMetadataForBooksAsync(Collection<String> isbns) {
+    List<Book> cachedBooks = new ArrayList<>();
+    Set<String> missingIsbns = new LinkedHashSet<>();
+
+    for (String isbn : isbns) {
+      getCachedBook(isbn).ifPresentOrElse(cachedBooks::add, () -> missingIsbns.add(isbn));
+    }
+
+    if (missingIsbns.isEmpty()) {
+      return Flux.fromIterable(cachedBooks);
+    }
+
+    Flux<Book> fetchedBooks =
+        requestMetadata(String.join(",", missingIsbns))
+            .flatMapIterable(response -> decodeAndCache(response, missingIsbns));
+
+    return Flux.fromIterable(cachedBooks).concatWith(fetchedBooks);
+  }
+
+  private Mono<byte[]> requestMetadata(String bibkeys) {
+    return openLibraryWebClient
+        .get()
+        .uri(
+            "/api/books",
+            uriBuilder ->
+                uriBuilder
+                    .queryParam("jscmd", "data")
+                    .queryParam("format", "json")
+                    .queryParam("bibkeys", bibkeys)
+                    .build())
+        .retrieve()
+        .bodyToMono(byte[].class)
+        .transform(openLibraryRequestGuard::guard)
+        // OpenLibrary won't know these ISBNs on the next attempt either, they count as missing
+        .onErrorResume(OpenLibraryApiClient::isPermanentClientError, error -> Mono.empty());
+  }
+
+  private static boolean isPermanentClientError(Throwable error) {
+    return error instanceof WebClientResponseException.NotFound
+        || error instanceof WebClientResponseException.Gone;
+  }
+
+  private Optional<Book> getCachedBook(String isbn) {
+    return openLibraryMetadataCache
+        .get(isbn)
+        .map(metadata -> openLibraryMetadataDecoder.decodeBook(isbn, metadata));
+  }
+
+  private List<Book> decodeAndCache(byte[] response, Collection<String> isbns) {
+    List<Book> books = new ArrayList<>(isbns.size());
+
+    openLibraryMetadataDecoder.decode(
+        response,
+        isbns,
+        (book, metadataOffset, metadataLength) -> {
+          openLibraryMetadataCache.put(book.getIsbn(), response, metadataOffset, metadataLength);
+          books.add(book);
+        });
 
-    ObjectNode result =
-        openLibraryWebClient
-            .get()
-            .uri(
-                "/api/books",
-                uriBuilder ->
-                    uriBuilder
-                        .queryParam("jscmd", "data")
-                        .queryParam("format", "json")
-                        .queryParam("bibkeys", isbn)
-                        .build())
-            .retrieve()
-            .bodyToMono(ObjectNode.class)
-            .retryWhen(Retry.fixedDelay(2, Duration.ofMillis(200)))
-            .block();
-
-    JsonNode content = result.get(isbn);
-
-    return convertToBook(isbn, content);
-  }
-
-  private Book convertToBook(String isbn, JsonNode content) {
-    Book book = new Book();
-    book.setIsbn(isbn);
-    book.setThumbnailUrl(content.get("cover").get("small").asText());
-    book.setTitle(content.get("title").asText());
-    book.setAuthor(content.get("authors").get(0).get("name").asText());
-    book.setPublisher(content.get("publishers").get(0).get("name").asText("n.A."));
-    book.setPages(content.get("number_of_pages").asLong(0));
-    book.setDescription(content.get("notes") == null ? "n.A" : content.get("notes").asText("n.A."));
-    book.setGenre(
-        content.get("subjects") == null
-            ? "n.A"
-            : content.get("subjects").get(0).get("name").asText("n.A."));
-    return book;
+    return books;
   }
 }
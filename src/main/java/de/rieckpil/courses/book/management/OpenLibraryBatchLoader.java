@@ -0,0 +1,97 @@
+package de.rieckpil.courses.book.management;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Collects the ISBNs of concurrent lookups for a short window (or until the maximum batch size is
+ * reached) and resolves them with a single OpenLibrary request, fanning the result out to the
+ * waiting callers. Requests run on the non-blocking WebClient path, so the number of lookups in
+ * flight is only bounded by {@code clients.open-library.max-in-flight-requests}, not by threads.
+ */
+@Component
+public class OpenLibraryBatchLoader {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OpenLibraryBatchLoader.class.getName());
+
+  private final OpenLibraryApiClient openLibraryApiClient;
+  private final Sinks.Many<PendingLookup> pendingLookups =
+      Sinks.many().unicast().onBackpressureBuffer();
+  private final Disposable dispatcher;
+
+  public OpenLibraryBatchLoader(
+      OpenLibraryApiClient openLibraryApiClient,
+      @Value("${clients.open-library.batch.max-size:50}") int maxBatchSize,
+      @Value("${clients.open-library.batch.max-wait:50ms}") Duration maxWait,
+      @Value("${clients.open-library.max-in-flight-requests:32}") int maxInFlightRequests) {
+    this.openLibraryApiClient = openLibraryApiClient;
+    this.dispatcher =
+        pendingLookups
+            .asFlux()
+            .bufferTimeout(maxBatchSize, maxWait)
+            .flatMap(this::dispatch, maxInFlightRequests)
+            .subscribe();
+  }
+
+  public Book fetchMetadataForBook(String isbn) {
+    return fetchMetadataForBookAsync(isbn).block();
+  }
+
+  public Mono<Book> fetchMetadataForBookAsync(String isbn) {
+    return Mono.defer(
+        () -> {
+          CompletableFuture<Book> result = new CompletableFuture<>();
+          pendingLookups.emitNext(
+              new PendingLookup(isbn, result),
+              Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+          return Mono.fromFuture(result);
+        });
+  }
+
+  private Mono<Void> dispatch(List<PendingLookup> batch) {
+    Set<String> isbns = batch.stream().map(PendingLookup::isbn).collect(Collectors.toSet());
+
+    LOG.debug("Fetching metadata for {} ISBN(s) with one request", isbns.size());
+
+    return openLibraryApiClient
+        .fetchMetadataForBooksAsync(isbns)
+        .collectMap(Book::getIsbn)
+        .doOnNext(books -> complete(batch, books))
+        .doOnError(error -> batch.forEach(lookup -> lookup.result().completeExceptionally(error)))
+        .onErrorComplete()
+        .then();
+  }
+
+  private void complete(List<PendingLookup> batch, Map<String, Book> books) {
+    for (PendingLookup lookup : batch) {
+      Book book = books.get(lookup.isbn());
+      if (book == null) {
+        lookup
+            .result()
+            .completeExceptionally(new OpenLibraryMetadataNotFoundException(lookup.isbn()));
+      } else {
+        lookup.result().complete(book);
+      }
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    dispatcher.dispose();
+  }
+
+  private record PendingLookup(String isbn, CompletableFuture<Book> result) {}
+}
@@ -0,0 +1,291 @@
+package de.rieckpil.courses.book.management;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Append-only, memory-mapped file that keeps the raw OpenLibrary metadata per ISBN across restarts.
+ *
+ * <p>Each record is laid out as {@code [key length][stored at][value length][key][value]}. The key
+ * length is written last, so a record that was only partially written before a crash is ignored
+ * when the file is read again. Newer records for the same ISBN shadow older ones. Once the file
+ * reaches its capacity, the live records are rewritten into a new file that replaces the old one,
+ * dropping shadowed and expired records.
+ *
+ * <p>The file is locked for the lifetime of the cache. Another process that is configured with the
+ * same location, e.g. a second instance on the same host, runs without persisting metadata.
+ *
+ * <p>The cache is disabled if no {@code clients.open-library.cache.location} is configured.
+ */
+@Component
+public class OpenLibraryMetadataCache {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(OpenLibraryMetadataCache.class.getName());
+
+  private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+  // a file that is full of live records is not rewritten again for every put
+  private static final Duration COMPACTION_BACKOFF = Duration.ofMinutes(1);
+
+  private final Duration timeToLive;
+  private final Path file;
+  private final Map<String, Entry> index = new ConcurrentHashMap<>();
+  private FileChannel lockChannel;
+  private MappedByteBuffer buffer;
+  private int writePosition;
+  private Instant nextCompactionAt = Instant.MIN;
+
+  public OpenLibraryMetadataCache(
+      @Value("${clients.open-library.cache.location:}") String location,
+      @Value("${clients.open-library.cache.time-to-live:30d}") Duration timeToLive,
+      @Value("${clients.open-library.cache.capacity:64MB}") DataSize capacity)
+      throws IOException {
+    this.timeToLive = timeToLive;
+
+    if (location.isBlank()) {
+      this.file = null;
+      return;
+    }
+
+    this.file = Path.of(location);
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+
+    if (!lock()) {
+      LOG.warn("'{}' is used by another process, not persisting OpenLibrary metadata", file);
+      return;
+    }
+
+    try (FileChannel channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity.toBytes());
+    }
+
+    load();
+
+    LOG.info("Loaded {} OpenLibrary metadata record(s) from '{}'", index.size(), file);
+  }
+
+  public static OpenLibraryMetadataCache disabled() {
+    try {
+      return new OpenLibraryMetadataCache("", Duration.ZERO, DataSize.ofBytes(0));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public Optional<byte[]> get(String isbn) {
+    Entry entry = index.get(isbn);
+
+    if (entry == null) {
+      return Optional.empty();
+    }
+
+    if (isExpired(entry, Instant.now())) {
+      index.remove(isbn, entry);
+      return Optional.empty();
+    }
+
+    byte[] value = new byte[entry.length()];
+    entry.buffer().get(entry.offset(), value);
+    return Optional.of(value);
+  }
+
+  public void put(String isbn, byte[] metadata) {
+    put(isbn, metadata, 0, metadata.length);
+  }
+
+  /** Stores the metadata found at the given range of the source, e.g. a full API response. */
+  public synchronized void put(String isbn, byte[] source, int offset, int length) {
+    if (buffer == null) {
+      return;
+    }
+
+    byte[] key = isbn.getBytes(StandardCharsets.UTF_8);
+    int recordBytes = HEADER_BYTES + key.length + length;
+
+    Instant now = Instant.now();
+
+    if (writePosition + recordBytes > buffer.capacity() && !now.isBefore(nextCompactionAt)) {
+      compact(now);
+    }
+
+    if (writePosition + recordBytes > buffer.capacity()) {
+      nextCompactionAt = now.plus(COMPACTION_BACKOFF);
+      LOG.warn("OpenLibrary metadata cache is full, not persisting metadata for '{}'", isbn);
+      return;
+    }
+
+    index.put(isbn, write(buffer, writePosition, key, now, source, offset, length));
+    writePosition += recordBytes;
+  }
+
+  public synchronized void flush() {
+    if (buffer != null) {
+      buffer.force();
+    }
+  }
+
+  @PreDestroy
+  public synchronized void close() throws IOException {
+    flush();
+
+    if (lockChannel != null) {
+      // closing the channel releases the lock
+      lockChannel.close();
+      lockChannel = null;
+    }
+  }
+
+  private boolean lock() throws IOException {
+    lockChannel =
+        FileChannel.open(
+            file.resolveSibling(file.getFileName() + ".lock"),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE);
+
+    FileLock lock;
+    try {
+      lock = lockChannel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      lock = null;
+    }
+
+    if (lock == null) {
+      lockChannel.close();
+      lockChannel = null;
+      return false;
+    }
+
+    return true;
+  }
+
+  private void load() {
+    int position = 0;
+
+    while (position + HEADER_BYTES <= buffer.capacity()) {
+      int keyLength = buffer.getInt(position);
+      if (keyLength <= 0) {
+        break;
+      }
+
+      Instant storedAt = Instant.ofEpochMilli(buffer.getLong(position + Integer.BYTES));
+      int valueLength = buffer.getInt(position + Integer.BYTES + Long.BYTES);
+      int recordBytes = HEADER_BYTES + keyLength + valueLength;
+
+      if (position + recordBytes > buffer.capacity()) {
+        break;
+      }
+
+      byte[] key = new byte[keyLength];
+      buffer.get(position + HEADER_BYTES, key);
+
+      index.put(
+          new String(key, StandardCharsets.UTF_8),
+          new Entry(buffer, position + HEADER_BYTES + keyLength, valueLength, storedAt));
+      position += recordBytes;
+    }
+
+    writePosition = position;
+  }
+
+  /**
+   * Writes the live records into a new file and moves it over the current one, a crash leaves
+   * either the old or the compacted file behind. Readers keep using the entries of the old mapping
+   * until the index points them to the new one.
+   */
+  private void compact(Instant now) {
+    Path compactedFile = file.resolveSibling(file.getFileName() + ".compacting");
+    Map<String, Entry> liveEntries = new HashMap<>();
+
+    try (FileChannel channel =
+        FileChannel.open(
+            compactedFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      MappedByteBuffer compacted =
+          channel.map(FileChannel.MapMode.READ_WRITE, 0, buffer.capacity());
+      int position = 0;
+
+      for (Map.Entry<String, Entry> indexEntry : index.entrySet()) {
+        Entry entry = indexEntry.getValue();
+        if (isExpired(entry, now)) {
+          continue;
+        }
+
+        byte[] key = indexEntry.getKey().getBytes(StandardCharsets.UTF_8);
+        byte[] value = new byte[entry.length()];
+        entry.buffer().get(entry.offset(), value);
+
+        liveEntries.put(
+            indexEntry.getKey(),
+            write(compacted, position, key, entry.storedAt(), value, 0, value.length));
+        position += HEADER_BYTES + key.length + value.length;
+      }
+
+      compacted.force();
+      Files.move(
+          compactedFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+      buffer = compacted;
+      writePosition = position;
+      index.putAll(liveEntries);
+      index.keySet().retainAll(liveEntries.keySet());
+
+      LOG.info("Compacted OpenLibrary metadata cache to {} record(s)", liveEntries.size());
+    } catch (IOException e) {
+      LOG.warn("Failed to compact OpenLibrary metadata cache '{}'", file, e);
+    }
+  }
+
+  private boolean isExpired(Entry entry, Instant now) {
+    return entry.storedAt().plus(timeToLive).isBefore(now);
+  }
+
+  private static Entry write(
+      MappedByteBuffer target,
+      int position,
+      byte[] key,
+      Instant storedAt,
+      byte[] source,
+      int offset,
+      int length) {
+    int valueOffset = position + HEADER_BYTES + key.length;
+
+    target.putLong(position + Integer.BYTES, storedAt.toEpochMilli());
+    target.putInt(position + Integer.BYTES + Long.BYTES, length);
+    target.put(position + HEADER_BYTES, key);
+    target.put(valueOffset, source, offset, length);
+    target.putInt(position, key.length);
+
+    return new Entry(target, valueOffset, length, storedAt);
+  }
+
+  private record Entry(MappedByteBuffer buffer, int offset, int length, Instant storedAt) {}
+}
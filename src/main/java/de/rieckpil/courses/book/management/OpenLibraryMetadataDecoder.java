@@ -0,0 +1,143 @@
+package de.rieckpil.courses.book.management;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Token-streaming decoder for OpenLibrary's {@code /api/books?jscmd=data} responses. Only the
+ * fields we store are read, everything else is skipped without building a tree. Fields that are
+ * missing in the response fall back to the same defaults the tree-based conversion used.
+ */
+public class OpenLibraryMetadataDecoder {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  @FunctionalInterface
+  public interface DecodedBookConsumer {
+
+    /**
+     * @param metadataOffset offset of the book's raw metadata object within the response
+     * @param metadataLength length of the book's raw metadata object in bytes
+     */
+    void accept(Book book, int metadataOffset, int metadataLength);
+  }
+
+  /** Decodes the books of the requested ISBNs, bibkeys that weren't requested are skipped. */
+  public void decode(byte[] response, Collection<String> isbns, DecodedBookConsumer consumer) {
+    try (JsonParser parser = JSON_FACTORY.createParser(response)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return;
+      }
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String bibkey = parser.currentName();
+        JsonToken value = parser.nextToken();
+
+        if (value == JsonToken.START_OBJECT && isbns.contains(bibkey)) {
+          int start = (int) parser.currentTokenLocation().getByteOffset();
+          Book book = decodeContent(parser, bibkey);
+          int end = (int) parser.currentTokenLocation().getByteOffset();
+          consumer.accept(book, start, end - start + 1);
+        } else {
+          parser.skipChildren();
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to decode OpenLibrary response", e);
+    }
+  }
+
+  /** Decodes the raw metadata object of a single book. */
+  public Book decodeBook(String isbn, byte[] metadata) {
+    try (JsonParser parser = JSON_FACTORY.createParser(metadata)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IllegalStateException("OpenLibrary metadata for '" + isbn + "' is malformed");
+      }
+      return decodeContent(parser, isbn);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to decode OpenLibrary metadata", e);
+    }
+  }
+
+  private Book decodeContent(JsonParser parser, String isbn) throws IOException {
+    Book book = new Book();
+    book.setIsbn(isbn);
+    book.setPublisher("n.A.");
+    book.setPages(0L);
+    book.setDescription("n.A");
+    book.setGenre("n.A");
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+
+      switch (field) {
+        case "cover" -> book.setThumbnailUrl(readField(parser, "small"));
+        case "title" -> book.setTitle(parser.getValueAsString());
+        case "authors" -> book.setAuthor(readFirstName(parser));
+        case "publishers" -> book.setPublisher(orDefault(readFirstName(parser), "n.A."));
+        case "number_of_pages" -> book.setPages(parser.getValueAsLong(0));
+        case "notes" ->
+            book.setDescription(
+                value == JsonToken.VALUE_STRING ? parser.getText() : skip(parser, "n.A."));
+        case "subjects" -> book.setGenre(orDefault(readFirstName(parser), "n.A."));
+        default -> parser.skipChildren();
+      }
+    }
+
+    return book;
+  }
+
+  private String readField(JsonParser parser, String name) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      return skip(parser, null);
+    }
+
+    String result = null;
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      boolean match = name.equals(parser.currentName());
+      parser.nextToken();
+
+      if (match && parser.currentToken().isScalarValue()) {
+        result = parser.getValueAsString();
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    return result;
+  }
+
+  private String readFirstName(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      return skip(parser, null);
+    }
+
+    String result = null;
+
+    if (parser.nextToken() != JsonToken.END_ARRAY) {
+      result = readField(parser, "name");
+
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        parser.skipChildren();
+      }
+    }
+
+    return result;
+  }
+
+  private String skip(JsonParser parser, String defaultValue) throws IOException {
+    parser.skipChildren();
+    return defaultValue;
+  }
+
+  private String orDefault(String value, String defaultValue) {
+    return value == null ? defaultValue : value;
+  }
+}
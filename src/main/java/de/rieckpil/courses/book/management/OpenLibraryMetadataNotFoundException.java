@@ -0,0 +1,7 @@
+package de.rieckpil.courses.book.management;
+
+public class OpenLibraryMetadataNotFoundException extends RuntimeException {
+  public OpenLibraryMetadataNotFoundException(String isbn) {
+    super("No metadata found for isbn '" + isbn + "'");
+  }
+}
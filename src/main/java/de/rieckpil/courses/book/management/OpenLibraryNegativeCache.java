@@ -0,0 +1,66 @@
+package de.rieckpil.courses.book.management;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Remembers ISBNs OpenLibrary has no metadata for, so that redelivered or repeated
+ * synchronizations for them don't cost another request until the entry expires.
+ *
+ * <p>The entries are kept in memory and, if {@code clients.open-library.negative-cache.location}
+ * is configured, also in an {@link OpenLibraryMetadataCache} file to survive restarts.
+ */
+@Component
+public class OpenLibraryNegativeCache {
+
+  private static final byte[] MISSING = new byte[0];
+
+  private final Cache<String, Boolean> missingIsbns;
+  private final OpenLibraryMetadataCache persistedMissingIsbns;
+
+  public OpenLibraryNegativeCache(
+      @Value("${clients.open-library.negative-cache.time-to-live:1d}") Duration timeToLive,
+      @Value("${clients.open-library.negative-cache.maximum-size:100000}") long maximumSize,
+      @Value("${clients.open-library.negative-cache.location:}") String location,
+      @Value("${clients.open-library.negative-cache.capacity:4MB}") DataSize capacity)
+      throws IOException {
+    this.missingIsbns =
+        Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(timeToLive).build();
+    this.persistedMissingIsbns =
+        new OpenLibraryMetadataCache(location, timeToLive, capacity);
+  }
+
+  public boolean isKnownMissing(String isbn) {
+    if (missingIsbns.getIfPresent(isbn) != null) {
+      return true;
+    }
+
+    if (persistedMissingIsbns.get(isbn).isPresent()) {
+      missingIsbns.put(isbn, Boolean.TRUE);
+      return true;
+    }
+
+    return false;
+  }
+
+  public void recordMissing(String isbn) {
+    missingIsbns.put(isbn, Boolean.TRUE);
+    persistedMissingIsbns.put(isbn, MISSING);
+  }
+
+  public void flush() {
+    persistedMissingIsbns.flush();
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    persistedMissingIsbns.close();
+  }
+}
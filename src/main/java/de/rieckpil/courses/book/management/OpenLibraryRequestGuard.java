@@ -0,0 +1,111 @@
+package de.rieckpil.courses.book.management;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Protects outbound OpenLibrary requests with a circuit breaker, an adaptive concurrency limit and
+ * retries with exponential backoff and jitter. Client errors (4xx) neither trip the circuit
+ * breaker nor lower the concurrency limit, and requests rejected by either of them are not retried.
+ */
+@Component
+public class OpenLibraryRequestGuard {
+
+  private final CircuitBreaker circuitBreaker;
+  private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+  private final Retry retry;
+
+  public OpenLibraryRequestGuard(
+      MeterRegistry meterRegistry,
+      @Value("${clients.open-library.concurrency.initial-limit:20}") int initialLimit,
+      @Value("${clients.open-library.concurrency.min-limit:1}") int minLimit,
+      @Value("${clients.open-library.concurrency.max-limit:200}") int maxLimit,
+      @Value("${clients.open-library.concurrency.max-queue-depth:100}") int maxQueueDepth,
+      @Value("${clients.open-library.concurrency.latency-threshold:1s}") Duration latencyThreshold,
+      @Value("${clients.open-library.circuit-breaker.failure-threshold:5}") int failureThreshold,
+      @Value("${clients.open-library.circuit-breaker.open-duration:30s}") Duration openDuration,
+      @Value("${clients.open-library.retry.max-attempts:2}") int maxRetryAttempts,
+      @Value("${clients.open-library.retry.min-backoff:200ms}") Duration minRetryBackoff) {
+
+    this.circuitBreaker =
+        new CircuitBreaker(
+            failureThreshold,
+            openDuration,
+            OpenLibraryRequestGuard::isServerSideFailure,
+            Clock.systemUTC());
+    this.concurrencyLimiter =
+        new AdaptiveConcurrencyLimiter(
+            initialLimit,
+            minLimit,
+            maxLimit,
+            maxQueueDepth,
+            latencyThreshold,
+            OpenLibraryRequestGuard::isServerSideFailure);
+    this.retry =
+        Retry.backoff(maxRetryAttempts, minRetryBackoff)
+            .jitter(0.5)
+            .filter(OpenLibraryRequestGuard::isServerSideFailure);
+
+    Gauge.builder(
+            "open-library.requests.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+        .register(meterRegistry);
+    Gauge.builder(
+            "open-library.requests.in-flight",
+            concurrencyLimiter,
+            AdaptiveConcurrencyLimiter::getInFlight)
+        .register(meterRegistry);
+    Gauge.builder(
+            "open-library.requests.queue-depth",
+            concurrencyLimiter,
+            AdaptiveConcurrencyLimiter::getQueueDepth)
+        .register(meterRegistry);
+    FunctionCounter.builder(
+            "open-library.requests.rejected",
+            concurrencyLimiter,
+            AdaptiveConcurrencyLimiter::getRejections)
+        .register(meterRegistry);
+    Gauge.builder(
+            "open-library.circuit-breaker.state",
+            circuitBreaker,
+            breaker -> breaker.getState().ordinal())
+        .description("0 = closed, 1 = half-open, 2 = open")
+        .register(meterRegistry);
+  }
+
+  public static OpenLibraryRequestGuard withDefaults() {
+    return new OpenLibraryRequestGuard(
+        new SimpleMeterRegistry(),
+        20,
+        1,
+        200,
+        100,
+        Duration.ofSeconds(1),
+        5,
+        Duration.ofSeconds(30),
+        2,
+        Duration.ofMillis(200));
+  }
+
+  public <T> Mono<T> guard(Mono<T> request) {
+    return circuitBreaker.protect(concurrencyLimiter.limit(request)).retryWhen(retry);
+  }
+
+  private static boolean isServerSideFailure(Throwable error) {
+    if (error instanceof OpenLibraryUnavailableException) {
+      return false;
+    }
+
+    return !(error instanceof WebClientResponseException responseException
+        && responseException.getStatusCode().is4xxClientError());
+  }
+}
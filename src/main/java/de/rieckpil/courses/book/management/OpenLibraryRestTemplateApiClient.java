@@ -1,10 +1,11 @@
 package de.rieckpil.courses.book.management;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -17,8 +18,13 @@ import org.springframework.web.client.RestTemplate;
 public class OpenLibraryRestTemplateApiClient {
 
   private final RestTemplate restTemplate;
+  private final OpenLibraryMetadataCache openLibraryMetadataCache;
+  private final OpenLibraryMetadataDecoder openLibraryMetadataDecoder =
+      new OpenLibraryMetadataDecoder();
 
-  public OpenLibraryRestTemplateApiClient(RestTemplateBuilder restTemplateBuilder) {
+  public OpenLibraryRestTemplateApiClient(
+      RestTemplateBuilder restTemplateBuilder, OpenLibraryMetadataCache openLibraryMetadataCache) {
+    this.openLibraryMetadataCache = openLibraryMetadataCache;
     this.restTemplate =
         restTemplateBuilder
             .rootUri("https://openlibrary.org")
@@ -29,6 +35,12 @@ public class OpenLibraryRestTemplateApiClient {
 
   public Book fetchMetadataForBook(String isbn) {
 
+    Optional<byte[]> cachedMetadata = openLibraryMetadataCache.get(isbn);
+
+    if (cachedMetadata.isPresent()) {
+      return openLibraryMetadataDecoder.decodeBook(isbn, cachedMetadata.get());
+    }
+
     HttpHeaders headers = new HttpHeaders();
     headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
     headers.set("X-Custom-Auth", "Duke42");
@@ -36,34 +48,28 @@ public class OpenLibraryRestTemplateApiClient {
 
     HttpEntity<Void> entity = new HttpEntity<>(headers);
 
-    ObjectNode result =
+    byte[] result =
         restTemplate
             .exchange(
                 "/api/books?jscmd=data&format=json&bibkeys={isbn}",
                 HttpMethod.GET,
                 entity,
-                ObjectNode.class,
+                byte[].class,
                 isbn)
             .getBody();
 
-    JsonNode content = result.get(isbn);
+    List<Book> books = new ArrayList<>(1);
 
-    return convertToBook(isbn, content);
-  }
+    openLibraryMetadataDecoder.decode(
+        result,
+        List.of(isbn),
+        (book, metadataOffset, metadataLength) -> {
+          openLibraryMetadataCache.put(isbn, result, metadataOffset, metadataLength);
+          books.add(book);
+        });
 
-  private Book convertToBook(String isbn, JsonNode content) {
-    Book book = new Book();
-    book.setIsbn(isbn);
-    book.setThumbnailUrl(content.get("cover").get("small").asText());
-    book.setTitle(content.get("title").asText());
-    book.setAuthor(content.get("authors").get(0).get("name").asText());
-    book.setPublisher(content.get("publishers").get(0).get("name").asText("n.A."));
-    book.setPages(content.get("number_of_pages").asLong(0));
-    book.setDescription(content.get("notes") == null ? "n.A" : content.get("notes").asText("n.A."));
-    book.setGenre(
-        content.get("subjects") == null
-            ? "n.A"
-            : content.get("subjects").get(0).get("name").asText("n.A."));
-    return book;
+    return books.stream()
+        .findFirst()
+        .orElseThrow(() -> new OpenLibraryMetadataNotFoundException(isbn));
   }
 }
@@ -1,7 +1,28 @@
 package de.rieckpil.courses.book.management;
 
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
   User findByNameAndEmail(String name, String email);
+
+  User findByEmail(String email);
+
+  /** Returns the id of the inserted user, or nothing if a user with this email already exists. */
+  @Transactional
+  @Query(
+      value =
+          "INSERT INTO users (name, email, created_at) VALUES (:name, :email, :createdAt) "
+              + "ON CONFLICT (email) DO NOTHING "
+              + "RETURNING id",
+      nativeQuery = true)
+  Optional<Long> insertIfAbsent(
+      @Param("name") String name,
+      @Param("email") String email,
+      @Param("createdAt") LocalDateTime createdAt);
 }
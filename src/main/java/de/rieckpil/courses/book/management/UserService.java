@@ -1,29 +1,105 @@
 package de.rieckpil.courses.book.management;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Optional;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+/**
+ * Resolves review authors. Known users are served from a bounded in-memory cache, new ones are
+ * created with an upsert so that concurrent first reviews of the same author don't collide on the
+ * unique email.
+ */
 @Service
 public class UserService {
 
   private final UserRepository userRepository;
+  private final Cache<UserKey, User> users;
 
-  public UserService(UserRepository userRepository) {
+  public UserService(
+      UserRepository userRepository,
+      @Value("${users.cache.maximum-size:10000}") long maximumSize,
+      @Value("${users.cache.time-to-live:1h}") Duration timeToLive) {
     this.userRepository = userRepository;
+    this.users =
+        Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(timeToLive).build();
   }
 
-  public User getOrCreateUser(String name, String email) {
-    User user = userRepository.findByNameAndEmail(name, email);
+  /** Looks the user up without creating it, known users don't cost a query. */
+  public Optional<User> findUser(String name, String email) {
+    UserKey key = new UserKey(name, email);
+    User user = users.getIfPresent(key);
 
     if (user == null) {
-      user = new User();
-      user.setName(name);
-      user.setEmail(email);
-      user.setCreatedAt(LocalDateTime.now()); // UUID.randomUUID();
-      user = userRepository.save(user);
+      user = userRepository.findByNameAndEmail(name, email);
+
+      if (user != null) {
+        users.put(key, user);
+      }
     }
 
+    return Optional.ofNullable(user);
+  }
+
+  public User getOrCreateUser(String name, String email) {
+    return findUser(name, email).orElseGet(() -> createUser(name, email));
+  }
+
+  private User createUser(String name, String email) {
+    UserKey key = new UserKey(name, email);
+    LocalDateTime createdAt = LocalDateTime.now();
+    User createdUser =
+        userRepository
+            .insertIfAbsent(name, email, createdAt)
+            .map(id -> newUser(id, name, email, createdAt))
+            .orElse(null);
+
+    if (createdUser == null) {
+      // lost the race against a concurrent insert or the email is registered with another name.
+      // Cached under the requested key, otherwise every review repeats the lookup and the upsert
+      User existingUser = userRepository.findByEmail(email);
+
+      if (existingUser != null) {
+        users.put(key, existingUser);
+      }
+
+      return existingUser;
+    }
+
+    // the insert is only visible to others once the surrounding transaction commits
+    cacheAfterCommit(key, createdUser);
+    return createdUser;
+  }
+
+  private User newUser(Long id, String name, String email, LocalDateTime createdAt) {
+    User user = new User();
+    user.setId(id);
+    user.setName(name);
+    user.setEmail(email);
+    user.setCreatedAt(createdAt);
     return user;
   }
+
+  private void cacheAfterCommit(UserKey key, User user) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      users.put(key, user);
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            users.put(key, user);
+          }
+        });
+  }
+
+  private record UserKey(String name, String email) {}
 }
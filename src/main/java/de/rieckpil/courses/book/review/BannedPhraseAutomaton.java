@@ -0,0 +1,158 @@
+package de.rieckpil.courses.book.review;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton over a set of banned phrases. Feeding a text character by character
+ * through {@link #next(int, char)} detects any of the phrases in a single pass, no matter how many
+ * phrases there are. Matching is case-insensitive and the automaton is immutable once compiled.
+ */
+public final class BannedPhraseAutomaton {
+
+  public static final int START = 0;
+
+  private final char[][] transitionChars;
+  private final int[][] transitionTargets;
+  private final int[] failures;
+  private final boolean[] matches;
+
+  private BannedPhraseAutomaton(
+      char[][] transitionChars, int[][] transitionTargets, int[] failures, boolean[] matches) {
+    this.transitionChars = transitionChars;
+    this.transitionTargets = transitionTargets;
+    this.failures = failures;
+    this.matches = matches;
+  }
+
+  public static BannedPhraseAutomaton compile(Collection<String> phrases) {
+    List<Map<Character, Integer>> transitions = new ArrayList<>();
+    List<Boolean> terminals = new ArrayList<>();
+    transitions.add(new TreeMap<>());
+    terminals.add(false);
+
+    for (String phrase : phrases) {
+      if (phrase.isEmpty()) {
+        continue;
+      }
+
+      int state = START;
+      for (int i = 0; i < phrase.length(); i++) {
+        Map<Character, Integer> stateTransitions = transitions.get(state);
+        char c = fold(phrase.charAt(i));
+        Integer next = stateTransitions.get(c);
+
+        if (next == null) {
+          next = transitions.size();
+          stateTransitions.put(c, next);
+          transitions.add(new TreeMap<>());
+          terminals.add(false);
+        }
+
+        state = next;
+      }
+      terminals.set(state, true);
+    }
+
+    int states = transitions.size();
+    char[][] transitionChars = new char[states][];
+    int[][] transitionTargets = new int[states][];
+    int[] failures = new int[states];
+    boolean[] matches = new boolean[states];
+
+    for (int state = 0; state < states; state++) {
+      Map<Character, Integer> stateTransitions = transitions.get(state);
+      transitionChars[state] = new char[stateTransitions.size()];
+      transitionTargets[state] = new int[stateTransitions.size()];
+
+      int i = 0;
+      for (Map.Entry<Character, Integer> transition : stateTransitions.entrySet()) {
+        transitionChars[state][i] = transition.getKey();
+        transitionTargets[state][i] = transition.getValue();
+        i++;
+      }
+      matches[state] = terminals.get(state);
+    }
+
+    BannedPhraseAutomaton automaton =
+        new BannedPhraseAutomaton(transitionChars, transitionTargets, failures, matches);
+    automaton.linkFailures();
+    return automaton;
+  }
+
+  /** Returns the state after reading {@code c} in the given state. */
+  public int next(int state, char c) {
+    char folded = fold(c);
+
+    while (true) {
+      int next = transition(state, folded);
+      if (next != -1) {
+        return next;
+      }
+      if (state == START) {
+        return START;
+      }
+      state = failures[state];
+    }
+  }
+
+  /** Whether a banned phrase ends at the position that led to the given state. */
+  public boolean isMatch(int state) {
+    return matches[state];
+  }
+
+  public boolean containsBannedPhrase(CharSequence text) {
+    int state = START;
+    for (int i = 0; i < text.length(); i++) {
+      state = next(state, text.charAt(i));
+      if (matches[state]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // breadth-first, so that the failure link of a state's prefix is known before the state itself
+  private void linkFailures() {
+    Deque<Integer> queue = new ArrayDeque<>();
+
+    for (int child : transitionTargets[START]) {
+      failures[child] = START;
+      queue.add(child);
+    }
+
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+
+      for (int i = 0; i < transitionChars[state].length; i++) {
+        char c = transitionChars[state][i];
+        int child = transitionTargets[state][i];
+
+        int failure = failures[state];
+        while (failure != START && transition(failure, c) == -1) {
+          failure = failures[failure];
+        }
+        int target = transition(failure, c);
+        failures[child] = target == -1 ? START : target;
+        matches[child] |= matches[failures[child]];
+
+        queue.add(child);
+      }
+    }
+  }
+
+  private int transition(int state, char c) {
+    int index = Arrays.binarySearch(transitionChars[state], c);
+    return index < 0 ? -1 : transitionTargets[state][index];
+  }
+
+  private static char fold(char c) {
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+}
@@ -0,0 +1,94 @@
+package de.rieckpil.courses.book.review;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Banned phrases of the review moderation, one per line of {@code review.banned-phrases.location}
+ * with {@code #} starting a comment. The file is checked for changes periodically and a changed
+ * dictionary is compiled aside and then swapped in, so verifications in flight keep using the
+ * automaton they started with.
+ */
+@Component
+public class BannedPhraseDictionary {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BannedPhraseDictionary.class.getName());
+
+  private final Resource location;
+
+  private volatile BannedPhraseAutomaton automaton;
+  private long lastModified;
+
+  @Autowired
+  public BannedPhraseDictionary(
+      @Value("${review.banned-phrases.location:classpath:banned-phrases.txt}") Resource location) {
+    this.location = location;
+
+    try {
+      load();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to load banned phrases from " + location, e);
+    }
+  }
+
+  private BannedPhraseDictionary(BannedPhraseAutomaton automaton) {
+    this.location = null;
+    this.automaton = automaton;
+  }
+
+  public static BannedPhraseDictionary of(String... phrases) {
+    return new BannedPhraseDictionary(BannedPhraseAutomaton.compile(List.of(phrases)));
+  }
+
+  public BannedPhraseAutomaton getAutomaton() {
+    return automaton;
+  }
+
+  @Scheduled(fixedDelayString = "${review.banned-phrases.reload-interval:1m}")
+  public synchronized void reloadIfModified() {
+    if (location == null) {
+      return;
+    }
+
+    try {
+      if (location.lastModified() != lastModified) {
+        load();
+      }
+    } catch (IOException e) {
+      LOG.warn("Unable to reload banned phrases from {}, keeping the current ones", location, e);
+    }
+  }
+
+  private void load() throws IOException {
+    long modified = location.lastModified();
+    List<String> phrases;
+
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(location.getInputStream(), StandardCharsets.UTF_8))) {
+      phrases =
+          reader
+              .lines()
+              .map(String::strip)
+              .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+              .toList();
+    }
+
+    this.automaton = BannedPhraseAutomaton.compile(phrases);
+    this.lastModified = modified;
+
+    LOG.info("Loaded {} banned phrase(s) from {}", phrases.size(), location);
+  }
+}
@@ -0,0 +1,18 @@
+package de.rieckpil.courses.book.review;
+
+import java.time.LocalDateTime;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+/** A review to import, {@code createdAt} defaults to the time of the import. */
+public record BulkReviewRequest(
+    @NotEmpty String isbn,
+    @NotEmpty String userName,
+    @NotEmpty String email,
+    @NotEmpty String reviewTitle,
+    @NotEmpty String reviewContent,
+    @NotNull @PositiveOrZero @Max(5) Integer rating,
+    LocalDateTime createdAt) {}
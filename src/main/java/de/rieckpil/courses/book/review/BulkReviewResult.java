@@ -0,0 +1,28 @@
+package de.rieckpil.courses.book.review;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** Outcome of importing the review at {@code index} of a bulk request. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkReviewResult(int index, Status status, Long reviewId, String error) {
+
+  public enum Status {
+    PUBLISHED,
+    PENDING,
+    REJECTED,
+    FAILED
+  }
+
+  public static BulkReviewResult stored(int index, ReviewStatus reviewStatus, Long reviewId) {
+    Status status = reviewStatus == ReviewStatus.PENDING ? Status.PENDING : Status.PUBLISHED;
+    return new BulkReviewResult(index, status, reviewId, null);
+  }
+
+  public static BulkReviewResult rejected(int index, String error) {
+    return new BulkReviewResult(index, Status.REJECTED, null, error);
+  }
+
+  public static BulkReviewResult failed(int index, String error) {
+    return new BulkReviewResult(index, Status.FAILED, null, error);
+  }
+}
@@ -11,7 +11,8 @@ import jakarta.persistence.*;
 public class Review {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reviews_seq")
+  @SequenceGenerator(name = "reviews_seq", sequenceName = "reviews_seq", allocationSize = 50)
   private Long id;
 
   @Column(nullable = false)
@@ -26,6 +27,10 @@ public class Review {
   @Column(nullable = false)
   private LocalDateTime createdAt;
 
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private ReviewStatus status = ReviewStatus.PUBLISHED;
+
   @ManyToOne private Book book;
 
   @ManyToOne private User user;
@@ -70,6 +75,14 @@ public class Review {
     this.createdAt = createdAt;
   }
 
+  public ReviewStatus getStatus() {
+    return status;
+  }
+
+  public void setStatus(ReviewStatus status) {
+    this.status = status;
+  }
+
   public Book getBook() {
     return book;
   }
@@ -101,6 +114,8 @@ public class Review {
         + rating
         + ", createdAt="
         + createdAt
+        + ", status="
+        + status
         + ", book="
         + book
         + ", user="
@@ -0,0 +1,346 @@
+package de.rieckpil.courses.book.review;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Imports reviews from a JSON array or newline-delimited JSON stream. The reviews are processed in
+ * chunks of {@code review.bulk-import.chunk-size}, each in its own transaction. Books and users of
+ * a chunk are resolved with one query each and the reviews are inserted with a single JDBC batch.
+ * The result of every review is written to the response as soon as its chunk is done.
+ */
+@Service
+public class ReviewBulkImport {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReviewBulkImport.class.getName());
+
+  private static final String INSERT_REVIEW =
+      "INSERT INTO reviews (title, content, rating, created_at, book_id, user_id, status) "
+          + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String INSERT_USER =
+      "INSERT INTO users (name, email, created_at) VALUES (:name, :email, :createdAt) "
+          + "ON CONFLICT (email) DO NOTHING";
+
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ReviewVerifier reviewVerifier;
+  private final ReviewModeration reviewModeration;
+  private final ReviewRepository reviewRepository;
+  private final ReviewStatisticsStore reviewStatisticsStore;
+  private final int chunkSize;
+
+  public ReviewBulkImport(
+      ObjectMapper objectMapper,
+      Validator validator,
+      NamedParameterJdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      ReviewVerifier reviewVerifier,
+      ReviewModeration reviewModeration,
+      ReviewRepository reviewRepository,
+      ReviewStatisticsStore reviewStatisticsStore,
+      @Value("${review.bulk-import.chunk-size:1000}") int chunkSize) {
+    this.objectMapper = objectMapper;
+    this.validator = validator;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.reviewVerifier = reviewVerifier;
+    this.reviewModeration = reviewModeration;
+    this.reviewRepository = reviewRepository;
+    this.reviewStatisticsStore = reviewStatisticsStore;
+    this.chunkSize = chunkSize;
+  }
+
+  public void importReviews(InputStream reviews, OutputStream results, boolean ndjson)
+      throws IOException {
+    try (MappingIterator<BulkReviewRequest> requests =
+            objectMapper.readerFor(BulkReviewRequest.class).readValues(reviews);
+        JsonGenerator generator = objectMapper.createGenerator(results)) {
+
+      if (ndjson) {
+        generator.setRootValueSeparator(new SerializedString("\n"));
+      } else {
+        generator.writeStartArray();
+      }
+
+      List<BulkReviewRequest> chunk = new ArrayList<>(chunkSize);
+      int index = 0;
+
+      while (true) {
+        try {
+          if (!requests.hasNextValue()) {
+            break;
+          }
+          chunk.add(requests.nextValue());
+        } catch (JsonMappingException e) {
+          // well-formed but not a review, e.g. a rating that is no number. The iterator skips the
+          // rest of it, results are written in order, so the reviews before it go first.
+          importChunk(generator, index - chunk.size(), chunk);
+          generator.writeObject(BulkReviewResult.rejected(index, describe(e)));
+          index++;
+          continue;
+        } catch (JsonProcessingException e) {
+          importChunk(generator, index - chunk.size(), chunk);
+          generator.writeObject(
+              BulkReviewResult.failed(index, "Malformed review: " + e.getOriginalMessage()));
+          break;
+        }
+
+        index++;
+
+        if (chunk.size() == chunkSize) {
+          importChunk(generator, index - chunk.size(), chunk);
+        }
+      }
+
+      importChunk(generator, index - chunk.size(), chunk);
+
+      if (!ndjson) {
+        generator.writeEndArray();
+      }
+    }
+  }
+
+  private static String describe(JsonMappingException e) {
+    String field =
+        e.getPath().stream()
+            .map(JsonMappingException.Reference::getFieldName)
+            .filter(Objects::nonNull)
+            .collect(Collectors.joining("."));
+
+    return field.isEmpty() ? "Invalid review" : field + " has an invalid value";
+  }
+
+  private void importChunk(JsonGenerator generator, int firstIndex, List<BulkReviewRequest> chunk)
+      throws IOException {
+    if (chunk.isEmpty()) {
+      return;
+    }
+
+    BulkReviewResult[] results = new BulkReviewResult[chunk.size()];
+
+    try {
+      transactionTemplate.executeWithoutResult(
+          transaction -> storeChunk(firstIndex, chunk, results));
+    } catch (DataAccessException | TransactionException e) {
+      LOG.warn("Failed to import reviews {} to {}", firstIndex, firstIndex + chunk.size() - 1, e);
+
+      for (int i = 0; i < results.length; i++) {
+        if (results[i] == null || results[i].status() != BulkReviewResult.Status.REJECTED) {
+          results[i] = BulkReviewResult.failed(firstIndex + i, "Storing the review failed");
+        }
+      }
+    }
+
+    for (BulkReviewResult result : results) {
+      generator.writeObject(result);
+    }
+
+    generator.flush();
+    chunk.clear();
+  }
+
+  private void storeChunk(
+      int firstIndex, List<BulkReviewRequest> requests, BulkReviewResult[] results) {
+    Set<String> isbns = new HashSet<>();
+
+    for (int i = 0; i < requests.size(); i++) {
+      Set<ConstraintViolation<BulkReviewRequest>> violations = validator.validate(requests.get(i));
+
+      if (violations.isEmpty()) {
+        isbns.add(requests.get(i).isbn());
+      } else {
+        ConstraintViolation<BulkReviewRequest> violation = violations.iterator().next();
+        results[i] =
+            BulkReviewResult.rejected(
+                firstIndex + i, violation.getPropertyPath() + " " + violation.getMessage());
+      }
+    }
+
+    boolean moderatedAsynchronously = reviewModeration.isAsynchronous();
+    Map<String, Long> bookIds = findBookIds(isbns);
+    Map<String, String> userNames = new LinkedHashMap<>();
+
+    for (int i = 0; i < requests.size(); i++) {
+      BulkReviewRequest request = requests.get(i);
+
+      if (results[i] != null) {
+        continue;
+      }
+
+      if (!bookIds.containsKey(request.isbn())) {
+        results[i] = BulkReviewResult.rejected(firstIndex + i, "Book not found");
+      } else if (!moderatedAsynchronously
+          && !reviewVerifier.doesMeetQualityStandards(request.reviewContent())) {
+        results[i] = BulkReviewResult.rejected(firstIndex + i, "Not meeting standards");
+      } else {
+        userNames.putIfAbsent(request.email(), request.userName());
+      }
+    }
+
+    if (userNames.isEmpty()) {
+      return;
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    Map<String, Long> userIds = findOrCreateUsers(userNames, now);
+    ReviewStatus status = moderatedAsynchronously ? ReviewStatus.PENDING : ReviewStatus.PUBLISHED;
+
+    List<Integer> accepted = new ArrayList<>();
+    for (int i = 0; i < requests.size(); i++) {
+      if (results[i] == null) {
+        accepted.add(i);
+      }
+    }
+
+    List<Long> reviewIds =
+        insertReviews(
+            accepted.stream().map(requests::get).toList(), bookIds, userIds, status, now);
+
+    Map<BookRating, Long> ratings = new HashMap<>();
+
+    for (int i = 0; i < accepted.size(); i++) {
+      int index = accepted.get(i);
+      BulkReviewRequest request = requests.get(index);
+      results[index] = BulkReviewResult.stored(firstIndex + index, status, reviewIds.get(i));
+      ratings.merge(
+          new BookRating(bookIds.get(request.isbn()), request.isbn(), request.rating()),
+          1L,
+          Long::sum);
+    }
+
+    if (status == ReviewStatus.PUBLISHED) {
+      ratings.forEach(
+          (rating, count) -> {
+            reviewRepository.addToReviewStatistic(rating.bookId(), rating.rating(), count);
+            reviewStatisticsStore.addRatings(
+                rating.bookId(), rating.isbn(), rating.rating(), count);
+          });
+    }
+  }
+
+  private Map<String, Long> findBookIds(Collection<String> isbns) {
+    Map<String, Long> bookIds = new HashMap<>();
+
+    if (!isbns.isEmpty()) {
+      jdbcTemplate.query(
+          "SELECT id, isbn FROM books WHERE isbn IN (:isbns)",
+          Map.of("isbns", isbns),
+          (RowCallbackHandler) row -> bookIds.put(row.getString("isbn"), row.getLong("id")));
+    }
+
+    return bookIds;
+  }
+
+  private Map<String, Long> findOrCreateUsers(Map<String, String> userNames, LocalDateTime now) {
+    Map<String, Long> userIds = findUserIds(userNames.keySet());
+
+    MapSqlParameterSource[] missingUsers =
+        userNames.entrySet().stream()
+            .filter(user -> !userIds.containsKey(user.getKey()))
+            .map(
+                user ->
+                    new MapSqlParameterSource()
+                        .addValue("name", user.getValue())
+                        .addValue("email", user.getKey())
+                        .addValue("createdAt", now))
+            .toArray(MapSqlParameterSource[]::new);
+
+    if (missingUsers.length > 0) {
+      jdbcTemplate.batchUpdate(INSERT_USER, missingUsers);
+      userIds.putAll(
+          findUserIds(
+              Arrays.stream(missingUsers).map(user -> (String) user.getValue("email")).toList()));
+    }
+
+    return userIds;
+  }
+
+  private Map<String, Long> findUserIds(Collection<String> emails) {
+    Map<String, Long> userIds = new HashMap<>();
+
+    jdbcTemplate.query(
+        "SELECT id, email FROM users WHERE email IN (:emails)",
+        Map.of("emails", emails),
+        (RowCallbackHandler) row -> userIds.put(row.getString("email"), row.getLong("id")));
+
+    return userIds;
+  }
+
+  private List<Long> insertReviews(
+      List<BulkReviewRequest> requests,
+      Map<String, Long> bookIds,
+      Map<String, Long> userIds,
+      ReviewStatus status,
+      LocalDateTime now) {
+    return jdbcTemplate
+        .getJdbcTemplate()
+        .execute(
+            (ConnectionCallback<List<Long>>)
+                connection -> {
+                  try (PreparedStatement statement =
+                      connection.prepareStatement(INSERT_REVIEW, new String[] {"id"})) {
+                    for (BulkReviewRequest request : requests) {
+                      statement.setString(1, request.reviewTitle());
+                      statement.setString(2, request.reviewContent());
+                      statement.setInt(3, request.rating());
+                      statement.setObject(
+                          4, request.createdAt() == null ? now : request.createdAt());
+                      statement.setLong(5, bookIds.get(request.isbn()));
+                      statement.setLong(6, userIds.get(request.email()));
+                      statement.setString(7, status.name());
+                      statement.addBatch();
+                    }
+
+                    statement.executeBatch();
+
+                    List<Long> reviewIds = new ArrayList<>(requests.size());
+                    try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                      while (generatedKeys.next()) {
+                        reviewIds.add(generatedKeys.getLong(1));
+                      }
+                    }
+                    return reviewIds;
+                  }
+                });
+  }
+
+  private record BookRating(Long bookId, String isbn, int rating) {}
+}
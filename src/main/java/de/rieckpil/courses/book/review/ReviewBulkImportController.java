@@ -0,0 +1,41 @@
+package de.rieckpil.courses.book.review;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/books")
+public class ReviewBulkImportController {
+
+  private final ReviewBulkImport reviewBulkImport;
+
+  public ReviewBulkImportController(ReviewBulkImport reviewBulkImport) {
+    this.reviewBulkImport = reviewBulkImport;
+  }
+
+  /** Results are returned in the format of the request, a JSON array or one JSON line each. */
+  @PostMapping(
+      value = "/reviews/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  @PreAuthorize("hasAuthority('ROLE_moderator')")
+  public void importReviews(
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+      InputStream reviews,
+      HttpServletResponse response)
+      throws IOException {
+    boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType);
+
+    response.setContentType(
+        ndjson ? MediaType.APPLICATION_NDJSON_VALUE : MediaType.APPLICATION_JSON_VALUE);
+    reviewBulkImport.importReviews(reviews, response.getOutputStream(), ndjson);
+  }
+}
@@ -1,13 +1,16 @@
 package de.rieckpil.courses.book.review;
 
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.List;
+
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -23,14 +26,35 @@ public class ReviewController {
   }
 
   @GetMapping("/reviews")
-  public ArrayNode getAllReviews(
+  public ResponseEntity<List<ReviewView>> getAllReviews(
       @RequestParam(name = "size", defaultValue = "20") Integer size,
-      @RequestParam(name = "orderBy", defaultValue = "none") String orderBy) {
-    return reviewService.getAllReviews(size, orderBy);
+      @RequestParam(name = "orderBy", defaultValue = "none") String orderBy,
+      @RequestParam(name = "cursor", required = false) String cursor) {
+
+    ReviewPage reviewPage = reviewService.getAllReviews(size, orderBy, cursor);
+
+    if (reviewPage.nextCursor() == null) {
+      return ResponseEntity.ok(reviewPage.reviews());
+    }
+
+    String nextPage =
+        ServletUriComponentsBuilder.fromCurrentRequest()
+            .replaceQueryParam("cursor", reviewPage.nextCursor())
+            .build()
+            .toUriString();
+
+    return ResponseEntity.ok()
+        .header(HttpHeaders.LINK, "<" + nextPage + ">; rel=\"next\"")
+        .body(reviewPage.reviews());
   }
 
   @GetMapping("/reviews/statistics")
-  public ArrayNode getReviewStatistics() {
+  public List<ReviewStatistic> getReviewStatistics(WebRequest webRequest) {
+    // answers polling clients without computing the statistics while nothing changed
+    if (webRequest.checkNotModified(reviewService.getReviewStatisticsETag())) {
+      return null;
+    }
+
     return reviewService.getReviewStatistics();
   }
 
@@ -52,6 +76,12 @@ public class ReviewController {
         uriComponentsBuilder
             .path("/api/books/{isbn}/reviews/{reviewId}")
             .buildAndExpand(isbn, reviewId);
+
+    if (reviewService.isModeratedAsynchronously()) {
+      // the review is only visible at its location once the moderation published it
+      return ResponseEntity.accepted().location(uriComponents.toUri()).build();
+    }
+
     return ResponseEntity.created(uriComponents.toUri()).build();
   }
 
@@ -62,7 +92,7 @@ public class ReviewController {
   }
 
   @GetMapping("/{isbn}/reviews/{reviewId}")
-  public ObjectNode getReviewById(@PathVariable String isbn, @PathVariable Long reviewId) {
+  public ReviewView getReviewById(@PathVariable String isbn, @PathVariable Long reviewId) {
     return reviewService.getReviewById(isbn, reviewId);
   }
 }
@@ -0,0 +1,38 @@
+package de.rieckpil.courses.book.review;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last review of a page in the {@code (createdAt, id)} ordering. Clients only see
+ * the opaque, URL-safe encoding.
+ */
+public record ReviewCursor(LocalDateTime createdAt, Long id) {
+
+  private static final String SEPARATOR = "|";
+
+  public static ReviewCursor of(ReviewView review) {
+    return new ReviewCursor(review.createdAt(), review.id());
+  }
+
+  public static ReviewCursor decode(String cursor) {
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = decoded.indexOf(SEPARATOR);
+
+      return new ReviewCursor(
+          LocalDateTime.parse(decoded.substring(0, separator)),
+          Long.parseLong(decoded.substring(separator + 1)));
+    } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+      throw new InvalidReviewCursorException("Invalid cursor '" + cursor + "'");
+    }
+  }
+
+  public String encode() {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString((createdAt + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,62 @@
+package de.rieckpil.courses.book.review;
+
+import java.io.IOException;
+import java.time.ZoneId;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.boot.jackson.JsonComponent;
+
+/**
+ * Writes reviews and review statistics field by field to the response's {@link JsonGenerator}, so
+ * that no intermediate JSON tree is built per response.
+ */
+@JsonComponent
+public class ReviewJsonComponent {
+
+  private static final ZoneId SUBMITTED_AT_ZONE = ZoneId.of("Europe/Berlin");
+
+  public static class ReviewViewSerializer extends StdSerializer<ReviewView> {
+
+    public ReviewViewSerializer() {
+      super(ReviewView.class);
+    }
+
+    @Override
+    public void serialize(ReviewView review, JsonGenerator generator, SerializerProvider provider)
+        throws IOException {
+      generator.writeStartObject();
+      generator.writeNumberField("reviewId", review.id());
+      generator.writeStringField("reviewContent", review.content());
+      generator.writeStringField("reviewTitle", review.title());
+      generator.writeNumberField("rating", review.rating());
+      generator.writeStringField("bookIsbn", review.bookIsbn());
+      generator.writeStringField("bookTitle", review.bookTitle());
+      generator.writeStringField("bookThumbnailUrl", review.bookThumbnailUrl());
+      generator.writeStringField("submittedBy", review.submittedBy());
+      generator.writeNumberField(
+          "submittedAt", review.createdAt().atZone(SUBMITTED_AT_ZONE).toInstant().toEpochMilli());
+      generator.writeEndObject();
+    }
+  }
+
+  public static class ReviewStatisticSerializer extends StdSerializer<ReviewStatistic> {
+
+    public ReviewStatisticSerializer() {
+      super(ReviewStatistic.class);
+    }
+
+    @Override
+    public void serialize(
+        ReviewStatistic statistic, JsonGenerator generator, SerializerProvider provider)
+        throws IOException {
+      generator.writeStartObject();
+      generator.writeNumberField("bookId", statistic.getId());
+      generator.writeStringField("isbn", statistic.getIsbn());
+      generator.writeNumberField("avg", statistic.getAvg());
+      generator.writeNumberField("ratings", statistic.getRatings());
+      generator.writeEndObject();
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package de.rieckpil.courses.book.review;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Optional asynchronous review moderation. When {@code review.moderation.async} is enabled, new
+ * reviews are stored as {@link ReviewStatus#PENDING} without being verified and this component
+ * verifies them in batches off the request path, publishing or rejecting them.
+ */
+@Component
+public class ReviewModeration {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReviewModeration.class.getName());
+
+  private final ReviewRepository reviewRepository;
+  private final ReviewVerifier reviewVerifier;
+  private final ReviewStatisticsStore reviewStatisticsStore;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean asynchronous;
+  private final int batchSize;
+  private final ExecutorService verificationPool;
+
+  public ReviewModeration(
+      ReviewRepository reviewRepository,
+      ReviewVerifier reviewVerifier,
+      ReviewStatisticsStore reviewStatisticsStore,
+      TransactionTemplate transactionTemplate,
+      @Value("${review.moderation.async:false}") boolean asynchronous,
+      @Value("${review.moderation.batch-size:100}") int batchSize,
+      @Value("${review.moderation.parallelism:4}") int parallelism) {
+    this.reviewRepository = reviewRepository;
+    this.reviewVerifier = reviewVerifier;
+    this.reviewStatisticsStore = reviewStatisticsStore;
+    this.transactionTemplate = transactionTemplate;
+    this.asynchronous = asynchronous;
+    this.batchSize = batchSize;
+    // verification is CPU bound, so a small pool of platform threads bounds its share of the CPU
+    this.verificationPool =
+        asynchronous
+            ? Executors.newFixedThreadPool(
+                parallelism, Thread.ofPlatform().name("review-moderation-", 0).factory())
+            : null;
+  }
+
+  public boolean isAsynchronous() {
+    return asynchronous;
+  }
+
+  @Scheduled(fixedDelayString = "${review.moderation.poll-interval:1s}")
+  public void moderatePendingReviews() {
+    // checked before the transaction begins, synchronous moderation doesn't borrow a connection
+    if (!asynchronous) {
+      return;
+    }
+
+    transactionTemplate.executeWithoutResult(transaction -> moderateBatch());
+  }
+
+  private void moderateBatch() {
+    List<Review> pendingReviews = reviewRepository.lockPendingReviews(Limit.of(batchSize));
+
+    if (pendingReviews.isEmpty()) {
+      return;
+    }
+
+    List<CompletableFuture<Boolean>> verdicts =
+        pendingReviews.stream()
+            .map(Review::getContent)
+            .map(
+                content ->
+                    CompletableFuture.supplyAsync(
+                        () -> reviewVerifier.doesMeetQualityStandards(content), verificationPool))
+            .toList();
+
+    int published = 0;
+
+    for (int i = 0; i < pendingReviews.size(); i++) {
+      Review review = pendingReviews.get(i);
+
+      if (verdicts.get(i).join()) {
+        review.setStatus(ReviewStatus.PUBLISHED);
+        reviewRepository.addToReviewStatistic(review.getBook().getId(), review.getRating());
+        reviewStatisticsStore.addRating(review.getBook(), review.getRating());
+        published++;
+      } else {
+        review.setStatus(ReviewStatus.REJECTED);
+      }
+    }
+
+    LOG.info(
+        "Moderated {} pending review(s), {} published and {} rejected",
+        pendingReviews.size(),
+        published,
+        pendingReviews.size() - published);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (verificationPool != null) {
+      verificationPool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,6 @@
+package de.rieckpil.courses.book.review;
+
+import java.util.List;
+
+/** A page of reviews, {@code nextCursor} is {@code null} on the last page. */
+public record ReviewPage(List<ReviewView> reviews, String nextCursor) {}
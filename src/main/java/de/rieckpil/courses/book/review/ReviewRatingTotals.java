@@ -0,0 +1,11 @@
+package de.rieckpil.courses.book.review;
+
+public interface ReviewRatingTotals {
+  Long getBookId();
+
+  String getIsbn();
+
+  Long getRatings();
+
+  Long getRatingSum();
+}
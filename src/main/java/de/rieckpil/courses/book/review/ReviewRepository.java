@@ -1,33 +1,113 @@
 package de.rieckpil.courses.book.review;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 public interface ReviewRepository extends JpaRepository<Review, Long> {
 
+  // joins book and user in the same statement instead of loading them per review
+  String SELECT_PUBLISHED_REVIEW_VIEW =
+      "SELECT new de.rieckpil.courses.book.review.ReviewView("
+          + "r.id, r.title, r.content, r.rating, r.createdAt, "
+          + "b.isbn, b.title, b.thumbnailUrl, u.name) "
+          + "FROM Review r JOIN r.book b JOIN r.user u "
+          + "WHERE r.status = de.rieckpil.courses.book.review.ReviewStatus.PUBLISHED ";
+
+  /** Reads the statistics maintained by the write path instead of aggregating all reviews. */
   @Query(
       value =
-          "SELECT id, ratings, isbn, avg "
-              + "FROM books "
-              + "JOIN ("
-              +   "SELECT book_id, ROUND(AVG(rating), 2) AS avg, COUNT(*) ratings "
-              +   "FROM reviews "
-              +   "GROUP BY book_id"
-              +  ") AS statistics "
-              + "ON statistics.book_id = id "
+          "SELECT id, ratings, isbn, ROUND(CAST(rating_sum AS NUMERIC) / ratings, 2) AS avg "
+              + "FROM review_statistics "
+              + "JOIN books ON book_id = id "
+              + "WHERE ratings > 0 "
               + "ORDER BY avg DESC;",
       nativeQuery = true)
   List<ReviewStatistic> getReviewStatistics();
 
-  List<Review> findTop5ByOrderByRatingDescCreatedAtDesc();
+  @Query(
+      value =
+          "SELECT book_id AS \"bookId\", isbn, ratings, rating_sum AS \"ratingSum\" "
+              + "FROM review_statistics "
+              + "JOIN books ON book_id = id",
+      nativeQuery = true)
+  List<ReviewRatingTotals> findRatingTotalsPerBook();
 
-  List<Review> findAllByOrderByCreatedAtDesc(Pageable pageable);
+  default void addToReviewStatistic(Long bookId, int rating) {
+    addToReviewStatistic(bookId, rating, 1);
+  }
 
-  void deleteByIdAndBookIsbn(Long reviewId, String isbn);
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO review_statistics AS statistics "
+              + "(book_id, ratings, rating_sum, rating_histogram) "
+              + "VALUES (:bookId, :count, :rating * :count, "
+              + "array_fill(CAST(0 AS BIGINT), ARRAY[:rating]) || CAST(:count AS BIGINT)) "
+              + "ON CONFLICT (book_id) DO UPDATE SET "
+              + "ratings = statistics.ratings + :count, "
+              + "rating_sum = statistics.rating_sum + :rating * :count, "
+              + "rating_histogram[:rating + 1] = "
+              + "COALESCE(statistics.rating_histogram[:rating + 1], 0) + :count",
+      nativeQuery = true)
+  void addToReviewStatistic(
+      @Param("bookId") Long bookId, @Param("rating") int rating, @Param("count") long count);
 
+  @Modifying
+  @Query(
+      value =
+          "UPDATE review_statistics SET "
+              + "ratings = ratings - 1, "
+              + "rating_sum = rating_sum - :rating, "
+              + "rating_histogram[:rating + 1] = rating_histogram[:rating + 1] - 1 "
+              + "WHERE book_id = :bookId",
+      nativeQuery = true)
+  void removeFromReviewStatistic(@Param("bookId") Long bookId, @Param("rating") int rating);
+
+  @Query(SELECT_PUBLISHED_REVIEW_VIEW + "ORDER BY r.rating DESC, r.createdAt DESC")
+  List<ReviewView> findTopRatedReviews(Limit limit);
+
+  @Query(SELECT_PUBLISHED_REVIEW_VIEW + "ORDER BY r.createdAt DESC, r.id DESC")
+  List<ReviewView> findLatestReviews(Limit limit);
+
+  // a row value comparison, unlike the equivalent OR, is a single range scan of the V005 index
+  @Query(
+      SELECT_PUBLISHED_REVIEW_VIEW
+          + "AND (r.createdAt, r.id) < (:createdAt, :id) "
+          + "ORDER BY r.createdAt DESC, r.id DESC")
+  List<ReviewView> findLatestReviewsBefore(
+      @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+  // concurrent moderation runs skip the reviews another run is already working on (a lock timeout
+  // of -2 is SKIP LOCKED), book and user are fetched with the reviews instead of one by one
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+  @Query(
+      "SELECT r FROM Review r JOIN FETCH r.book JOIN FETCH r.user "
+          + "WHERE r.status = de.rieckpil.courses.book.review.ReviewStatus.PENDING "
+          + "ORDER BY r.id")
+  List<Review> lockPendingReviews(Limit limit);
+
+  @Modifying
+  @Query("DELETE FROM Review r WHERE r.id = :reviewId")
+  int deleteReviewById(@Param("reviewId") Long reviewId);
+
+  // SELECT ... FOR UPDATE, a concurrent moderation can't publish the review once it was read
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
   Optional<Review> findByIdAndBookIsbn(Long reviewId, String isbn);
+
+  @Query(SELECT_PUBLISHED_REVIEW_VIEW + "AND r.id = :reviewId AND b.isbn = :isbn")
+  Optional<ReviewView> findReviewViewByIdAndBookIsbn(
+      @Param("reviewId") Long reviewId, @Param("isbn") String isbn);
 }
@@ -1,126 +1,249 @@
 package de.rieckpil.courses.book.review;
 
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.rieckpil.courses.book.management.Book;
 import de.rieckpil.courses.book.management.BookRepository;
+import de.rieckpil.courses.book.management.User;
 import de.rieckpil.courses.book.management.UserService;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @Transactional
 public class ReviewService {
 
+  static final int MAX_PAGE_SIZE = 100;
+
   private final ReviewVerifier reviewVerifier;
   private final UserService userService;
   private final BookRepository bookRepository;
   private final ReviewRepository reviewRepository;
-  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final ReviewStatisticsStore reviewStatisticsStore;
+  private final ReviewModeration reviewModeration;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean forkLookups;
 
   public ReviewService(
       ReviewVerifier reviewVerifier,
       UserService userService,
       BookRepository bookRepository,
-      ReviewRepository reviewRepository) {
+      ReviewRepository reviewRepository,
+      ReviewStatisticsStore reviewStatisticsStore,
+      ReviewModeration reviewModeration,
+      TransactionTemplate transactionTemplate,
+      @Value("${review.creation.fork-lookups:true}") boolean forkLookups) {
     this.reviewVerifier = reviewVerifier;
     this.userService = userService;
     this.bookRepository = bookRepository;
     this.reviewRepository = reviewRepository;
+    this.reviewStatisticsStore = reviewStatisticsStore;
+    this.reviewModeration = reviewModeration;
+    this.transactionTemplate = transactionTemplate;
+    this.forkLookups = forkLookups;
+  }
+
+  public boolean isModeratedAsynchronously() {
+    return reviewModeration.isAsynchronous();
   }
 
+  /**
+   * Resolves the book, the verification and the author before the transaction starts, so the
+   * lookups don't hold a connection while the request waits for them. Only storing the review and
+   * its statistic runs within the transaction.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
   public Long createBookReview(
       String isbn, BookReviewRequest bookReviewRequest, String userName, String email) {
+    boolean verify = !reviewModeration.isAsynchronous();
 
-    Book book = bookRepository.findByIsbn(isbn);
+    ReviewAuthoring authoring =
+        forkLookups
+            ? resolveForked(isbn, bookReviewRequest, verify, userName, email)
+            : resolveSequentially(isbn, bookReviewRequest, verify, userName, email);
 
-    if (book == null) {
-      throw new IllegalArgumentException("Book not found");
+    return transactionTemplate.execute(
+        status -> storeReview(authoring, bookReviewRequest, verify));
+  }
+
+  private Long storeReview(
+      ReviewAuthoring authoring, BookReviewRequest bookReviewRequest, boolean verify) {
+    Review review = createReview(authoring, bookReviewRequest);
+
+    if (!verify) {
+      review.setStatus(ReviewStatus.PENDING);
+      return reviewRepository.save(review).getId();
     }
 
-    if (reviewVerifier.doesMeetQualityStandards(bookReviewRequest.getReviewContent())) {
-      Review review = new Review();
+    review = reviewRepository.save(review);
+    reviewRepository.addToReviewStatistic(authoring.book().getId(), review.getRating());
+    reviewStatisticsStore.addRating(authoring.book(), review.getRating());
 
-      review.setBook(book);
-      review.setContent(bookReviewRequest.getReviewContent());
-      review.setTitle(bookReviewRequest.getReviewTitle());
-      review.setRating(bookReviewRequest.getRating());
-      review.setUser(userService.getOrCreateUser(userName, email));
-      review.setCreatedAt(LocalDateTime.now());
+    return review.getId();
+  }
 
-      review = reviewRepository.save(review);
+  private ReviewAuthoring resolveSequentially(
+      String isbn,
+      BookReviewRequest bookReviewRequest,
+      boolean verify,
+      String userName,
+      String email) {
+    Book book = findBook(isbn);
 
-      return review.getId();
-    } else {
+    if (verify && !reviewVerifier.doesMeetQualityStandards(bookReviewRequest.getReviewContent())) {
       throw new BadReviewQualityException("Not meeting standards");
     }
+
+    return new ReviewAuthoring(book, userService.getOrCreateUser(userName, email));
   }
 
-  public ArrayNode getReviewStatistics() {
-    ArrayNode result = objectMapper.createArrayNode();
+  /**
+   * Looks up the book, verifies the review and looks up its author concurrently on virtual threads.
+   * The results are joined in the order of the sequential resolution, so a missing book still wins
+   * over a bad review. A failure interrupts the remaining forks, but closing the executor still
+   * waits for lookups that are blocked in JDBC calls, which don't react to interrupts.
+   */
+  private ReviewAuthoring resolveForked(
+      String isbn,
+      BookReviewRequest bookReviewRequest,
+      boolean verify,
+      String userName,
+      String email) {
+    try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+      Future<Book> book = scope.submit(() -> findBook(isbn));
+      Future<Boolean> meetsQualityStandards =
+          scope.submit(
+              () ->
+                  !verify
+                      || reviewVerifier.doesMeetQualityStandards(
+                          bookReviewRequest.getReviewContent()));
+      Future<Optional<User>> user = scope.submit(() -> userService.findUser(userName, email));
+
+      try {
+        Book reviewedBook = join(book);
+
+        if (!join(meetsQualityStandards)) {
+          throw new BadReviewQualityException("Not meeting standards");
+        }
+
+        return new ReviewAuthoring(
+            reviewedBook, join(user).orElseGet(() -> userService.getOrCreateUser(userName, email)));
+      } finally {
+        book.cancel(true);
+        meetsQualityStandards.cancel(true);
+        user.cancel(true);
+      }
+    }
+  }
 
-    reviewRepository.getReviewStatistics().stream()
-        .map(this::mapReviewStatistic)
-        .forEach(result::add);
+  private Book findBook(String isbn) {
+    Book book = bookRepository.findByIsbn(isbn);
 
-    return result;
+    if (book == null) {
+      throw new IllegalArgumentException("Book not found");
+    }
+
+    return book;
   }
 
-  public ArrayNode getAllReviews(Integer size, String orderBy) {
-    ArrayNode result = objectMapper.createArrayNode();
+  private static <T> T join(Future<T> fork) {
+    try {
+      return fork.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while creating the review", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
 
-    List<Review> requestedReviews;
+  private Review createReview(ReviewAuthoring authoring, BookReviewRequest bookReviewRequest) {
+    Review review = new Review();
 
-    if (orderBy.equals("rating")) {
-      requestedReviews = reviewRepository.findTop5ByOrderByRatingDescCreatedAtDesc();
-    } else {
-      requestedReviews = reviewRepository.findAllByOrderByCreatedAtDesc(PageRequest.of(0, size));
-    }
+    review.setBook(authoring.book());
+    review.setContent(bookReviewRequest.getReviewContent());
+    review.setTitle(bookReviewRequest.getReviewTitle());
+    review.setRating(bookReviewRequest.getRating());
+    review.setUser(authoring.user());
+    review.setCreatedAt(LocalDateTime.now());
 
-    requestedReviews.stream().map(this::mapReview).forEach(result::add);
+    return review;
+  }
 
-    return result;
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public String getReviewStatisticsETag() {
+    return reviewStatisticsStore.getETag();
   }
 
-  private ObjectNode mapReview(Review review) {
-    ObjectNode objectNode = objectMapper.createObjectNode();
-    objectNode.put("reviewId", review.getId());
-    objectNode.put("reviewContent", review.getContent());
-    objectNode.put("reviewTitle", review.getTitle());
-    objectNode.put("rating", review.getRating());
-    objectNode.put("bookIsbn", review.getBook().getIsbn());
-    objectNode.put("bookTitle", review.getBook().getTitle());
-    objectNode.put("bookThumbnailUrl", review.getBook().getThumbnailUrl());
-    objectNode.put("submittedBy", review.getUser().getName());
-    objectNode.put(
-        "submittedAt",
-        review.getCreatedAt().atZone(ZoneId.of("Europe/Berlin")).toInstant().toEpochMilli());
-    return objectNode;
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public List<ReviewStatistic> getReviewStatistics() {
+    return reviewStatisticsStore.isSeeded()
+        ? reviewStatisticsStore.getReviewStatistics()
+        : reviewRepository.getReviewStatistics();
   }
 
-  private ObjectNode mapReviewStatistic(ReviewStatistic reviewStatistic) {
-    ObjectNode statistic = objectMapper.createObjectNode();
-    statistic.put("bookId", reviewStatistic.getId());
-    statistic.put("isbn", reviewStatistic.getIsbn());
-    statistic.put("avg", reviewStatistic.getAvg());
-    statistic.put("ratings", reviewStatistic.getRatings());
-    return statistic;
+  public ReviewPage getAllReviews(Integer size, String orderBy, String cursor) {
+    List<ReviewView> requestedReviews;
+    String nextCursor = null;
+
+    if (orderBy.equals("rating")) {
+      requestedReviews = reviewRepository.findTopRatedReviews(Limit.of(5));
+    } else {
+      Limit limit = Limit.of(Math.clamp(size, 1, MAX_PAGE_SIZE));
+
+      if (cursor == null) {
+        requestedReviews = reviewRepository.findLatestReviews(limit);
+      } else {
+        ReviewCursor position = ReviewCursor.decode(cursor);
+        requestedReviews =
+            reviewRepository.findLatestReviewsBefore(position.createdAt(), position.id(), limit);
+      }
+
+      if (requestedReviews.size() == limit.max()) {
+        nextCursor = ReviewCursor.of(requestedReviews.get(requestedReviews.size() - 1)).encode();
+      }
+    }
+
+    return new ReviewPage(requestedReviews, nextCursor);
   }
 
   public void deleteReview(String isbn, Long reviewId) {
-    this.reviewRepository.deleteByIdAndBookIsbn(reviewId, isbn);
+    this.reviewRepository
+        .findByIdAndBookIsbn(reviewId, isbn)
+        .ifPresent(
+            review -> {
+              // the review is locked, its status can't change until the delete commits, and only
+              // the transaction that actually removed it updates the statistics
+              if (reviewRepository.deleteReviewById(review.getId()) == 1
+                  && review.getStatus() == ReviewStatus.PUBLISHED) {
+                reviewRepository.removeFromReviewStatistic(
+                    review.getBook().getId(), review.getRating());
+                reviewStatisticsStore.removeRating(review.getBook(), review.getRating());
+              }
+            });
   }
 
-  public ObjectNode getReviewById(String isbn, Long reviewId) {
+  public ReviewView getReviewById(String isbn, Long reviewId) {
     return this.reviewRepository
-        .findByIdAndBookIsbn(reviewId, isbn)
-        .map(this::mapReview)
+        .findReviewViewByIdAndBookIsbn(reviewId, isbn)
         .orElseThrow(ReviewNotFoundException::new);
   }
+
+  private record ReviewAuthoring(Book book, User user) {}
 }
@@ -0,0 +1,212 @@
+package de.rieckpil.courses.book.review;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.rieckpil.courses.book.management.Book;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory rating count and sum per book, so that reading the review statistics neither hits the
+ * database nor contends on a lock. Updates are applied once the surrounding transaction commits.
+ *
+ * <p>The store is seeded on startup and periodically reconciled with the review_statistics table.
+ * This corrects drift, e.g. from reviews written by other application instances.
+ */
+@Component
+public class ReviewStatisticsStore {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReviewStatisticsStore.class.getName());
+
+  private static final int RECONCILE_ATTEMPTS = 3;
+
+  private final ReviewRepository reviewRepository;
+
+  private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+  private final AtomicLong version = new AtomicLong();
+
+  private final Map<Long, BookRatings> ratingsPerBook = new ConcurrentHashMap<>();
+  private volatile boolean seeded;
+
+  public ReviewStatisticsStore(ReviewRepository reviewRepository) {
+    this.reviewRepository = reviewRepository;
+  }
+
+  public void addRating(Book book, int rating) {
+    addRatings(book.getId(), book.getIsbn(), rating, 1);
+  }
+
+  public void addRatings(Long bookId, String isbn, int rating, long count) {
+    afterCommit(
+        () -> {
+          ratingsFor(bookId, isbn).add(rating * count, count);
+          version.incrementAndGet();
+        });
+  }
+
+  public void removeRating(Book book, int rating) {
+    afterCommit(
+        () -> {
+          ratingsFor(book.getId(), book.getIsbn()).add(-rating, -1);
+          version.incrementAndGet();
+        });
+  }
+
+  /**
+   * Changes whenever the statistics may have changed, always after the change is visible. It also
+   * changes with every restart, ETags of different application instances never match.
+   */
+  public String getETag() {
+    return "\"statistics-" + instanceId + "-" + version.get() + "\"";
+  }
+
+  public boolean isSeeded() {
+    return seeded;
+  }
+
+  public List<ReviewStatistic> getReviewStatistics() {
+    return ratingsPerBook.values().stream()
+        .map(BookRatings::toStatistic)
+        .filter(statistic -> statistic.getRatings() > 0)
+        .sorted(Comparator.comparing(ReviewStatistic::getAvg).reversed())
+        .toList();
+  }
+
+  @Scheduled(fixedDelayString = "${review.statistics.reconcile-interval:10m}")
+  public void reconcile() {
+    for (int attempt = 1; attempt <= RECONCILE_ATTEMPTS; attempt++) {
+      if (tryReconcile()) {
+        LOG.debug("Reconciled review statistics for {} book(s)", ratingsPerBook.size());
+        return;
+      }
+    }
+
+    LOG.debug("Review statistics kept changing while reconciling, trying again next time");
+  }
+
+  /**
+   * Applies the difference between the database and the totals known before the query. A rating
+   * applied while the query runs may or may not be part of its result, so the attempt is dropped
+   * then. Ratings applied after the query are kept, they are added on top of the difference. Only
+   * a rating committed before the query but applied after it is counted twice, until the next run.
+   */
+  private boolean tryReconcile() {
+    long versionBefore = version.get();
+
+    Map<Long, RatingTotals> known = new HashMap<>();
+    ratingsPerBook.forEach((bookId, ratings) -> known.put(bookId, ratings.totals()));
+
+    List<ReviewRatingTotals> fromDatabase = reviewRepository.findRatingTotalsPerBook();
+
+    if (version.get() != versionBefore) {
+      return false;
+    }
+
+    for (ReviewRatingTotals totals : fromDatabase) {
+      RatingTotals before = known.remove(totals.getBookId());
+      long ratingSum = before == null ? 0 : before.ratingSum();
+      long ratings = before == null ? 0 : before.ratings();
+
+      ratingsFor(totals.getBookId(), totals.getIsbn())
+          .add(totals.getRatingSum() - ratingSum, totals.getRatings() - ratings);
+    }
+
+    // books without a statistics row in the database, e.g. because they were deleted
+    known.forEach(
+        (bookId, before) -> ratingsPerBook.get(bookId).add(-before.ratingSum(), -before.ratings()));
+
+    this.seeded = true;
+    this.version.incrementAndGet();
+    return true;
+  }
+
+  private BookRatings ratingsFor(Long bookId, String isbn) {
+    return ratingsPerBook.computeIfAbsent(bookId, id -> new BookRatings(id, isbn));
+  }
+
+  private static void afterCommit(Runnable update) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      update.run();
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            update.run();
+          }
+        });
+  }
+
+  private static final class BookRatings {
+
+    private final Long bookId;
+    private final String isbn;
+    private final LongAdder ratingSum = new LongAdder();
+    private final LongAdder ratings = new LongAdder();
+
+    private BookRatings(Long bookId, String isbn) {
+      this.bookId = bookId;
+      this.isbn = isbn;
+    }
+
+    private void add(long rating, long count) {
+      ratingSum.add(rating);
+      ratings.add(count);
+    }
+
+    private RatingTotals totals() {
+      return new RatingTotals(ratingSum.sum(), ratings.sum());
+    }
+
+    private ReviewStatistic toStatistic() {
+      long count = ratings.sum();
+      BigDecimal avg =
+          count == 0
+              ? BigDecimal.ZERO
+              : BigDecimal.valueOf(ratingSum.sum())
+                  .divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+      return new BookStatistic(bookId, count, isbn, avg);
+    }
+  }
+
+  private record RatingTotals(long ratingSum, long ratings) {}
+
+  private record BookStatistic(Long id, Long ratings, String isbn, BigDecimal avg)
+      implements ReviewStatistic {
+
+    @Override
+    public Long getId() {
+      return id;
+    }
+
+    @Override
+    public Long getRatings() {
+      return ratings;
+    }
+
+    @Override
+    public String getIsbn() {
+      return isbn;
+    }
+
+    @Override
+    public BigDecimal getAvg() {
+      return avg;
+    }
+  }
+}
@@ -0,0 +1,8 @@
+package de.rieckpil.courses.book.review;
+
+public enum ReviewStatus {
+  /** Stored, but not yet verified by the asynchronous moderation. */
+  PENDING,
+  PUBLISHED,
+  REJECTED
+}
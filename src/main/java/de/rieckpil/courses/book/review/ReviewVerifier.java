@@ -1,36 +1,68 @@
 package de.rieckpil.courses.book.review;
 
-import java.util.Arrays;
-
 import org.springframework.stereotype.Service;
 
 @Service
 public class ReviewVerifier {
 
-  private boolean doesNotContainSwearWords(String review) {
-    return !review.contains("shit");
+  private final BannedPhraseDictionary bannedPhraseDictionary;
+
+  public ReviewVerifier(BannedPhraseDictionary bannedPhraseDictionary) {
+    this.bannedPhraseDictionary = bannedPhraseDictionary;
   }
 
+  /**
+   * Scans the review once without allocating. Words are separated by single spaces and counted
+   * like {@code review.split(" ")} would, banned phrases are matched case-insensitively.
+   */
   public boolean doesMeetQualityStandards(String review) {
+    BannedPhraseAutomaton bannedPhrases = bannedPhraseDictionary.getAutomaton();
+    int bannedPhraseState = BannedPhraseAutomaton.START;
 
-    if (review.contains("Lorem ipsum")) {
-      return false;
-    }
+    int length = review.length();
+    int words = 0;
+    int trailingEmptyWords = 0;
+    int iWords = 0;
+    int goodWords = 0;
+    int wordStart = 0;
 
-    String[] words = review.split(" ");
+    for (int i = 0; i <= length; i++) {
+      if (i < length) {
+        char c = review.charAt(i);
+        bannedPhraseState = bannedPhrases.next(bannedPhraseState, c);
 
-    if (Arrays.stream(words).filter(s -> s.equalsIgnoreCase("I")).count() >= 5) {
-      return false;
-    }
+        if (bannedPhrases.isMatch(bannedPhraseState)) {
+          return false;
+        }
 
-    if (Arrays.stream(words).filter(s -> s.equalsIgnoreCase("good")).count() >= 3) {
-      return false;
-    }
+        if (c != ' ') {
+          continue;
+        }
+      }
+
+      int wordLength = i - wordStart;
+      words++;
+      trailingEmptyWords = wordLength == 0 ? trailingEmptyWords + 1 : 0;
 
-    if (words.length <= 10) {
-      return false;
+      if (isWord(review, wordStart, wordLength, "I") && ++iWords >= 5) {
+        return false;
+      }
+
+      if (isWord(review, wordStart, wordLength, "good") && ++goodWords >= 3) {
+        return false;
+      }
+
+      wordStart = i + 1;
     }
 
-    return doesNotContainSwearWords(review);
+    // split(" ") returns a review without spaces as is and drops trailing empty words otherwise
+    int wordCount = words == 1 ? 1 : words - trailingEmptyWords;
+
+    return wordCount > 10;
+  }
+
+  private static boolean isWord(String review, int wordStart, int wordLength, String word) {
+    return wordLength == word.length()
+        && review.regionMatches(true, wordStart, word, 0, wordLength);
   }
 }
@@ -0,0 +1,15 @@
+package de.rieckpil.courses.book.review;
+
+import java.time.LocalDateTime;
+
+/** Read-only view of a review together with the book and user details needed for listing it. */
+public record ReviewView(
+    Long id,
+    String title,
+    String content,
+    Integer rating,
+    LocalDateTime createdAt,
+    String bookIsbn,
+    String bookTitle,
+    String bookThumbnailUrl,
+    String submittedBy) {}
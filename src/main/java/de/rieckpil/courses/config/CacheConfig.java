@@ -0,0 +1,11 @@
+package de.rieckpil.courses.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+  // Caches are configured via spring.cache.* and exposed as cache.* metrics by the Actuator
+}
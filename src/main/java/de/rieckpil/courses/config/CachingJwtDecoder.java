@@ -0,0 +1,73 @@
+package de.rieckpil.courses.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Remembers successfully decoded and validated tokens until they expire, clients reuse a token for
+ * many requests and would otherwise pay for parsing and the signature check every time. Tokens are
+ * keyed by their SHA-256 hash, tokens without an expiry are never cached.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+  private final JwtDecoder delegate;
+  private final Cache<String, Jwt> decodedTokens;
+
+  public CachingJwtDecoder(JwtDecoder delegate, long maximumSize) {
+    this(delegate, maximumSize, Clock.systemUTC());
+  }
+
+  CachingJwtDecoder(JwtDecoder delegate, long maximumSize, Clock clock) {
+    this.delegate = delegate;
+    this.decodedTokens =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(
+                Expiry.creating(
+                    (String tokenHash, Jwt jwt) -> timeToLive(jwt.getExpiresAt(), clock)))
+            .build();
+  }
+
+  @Override
+  public Jwt decode(String token) throws JwtException {
+    String tokenHash = hash(token);
+    Jwt jwt = decodedTokens.getIfPresent(tokenHash);
+
+    if (jwt == null) {
+      jwt = delegate.decode(token);
+
+      if (jwt.getExpiresAt() != null) {
+        decodedTokens.put(tokenHash, jwt);
+      }
+    }
+
+    return jwt;
+  }
+
+  private static Duration timeToLive(Instant expiresAt, Clock clock) {
+    Duration timeToLive = Duration.between(clock.instant(), expiresAt);
+    return timeToLive.isNegative() ? Duration.ZERO : timeToLive;
+  }
+
+  private static String hash(String token) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+    }
+  }
+}
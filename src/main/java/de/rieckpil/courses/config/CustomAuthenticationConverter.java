@@ -3,7 +3,11 @@ package de.rieckpil.courses.config;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
@@ -11,18 +15,33 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 
+/**
+ * Maps the realm roles to authorities. The {@link CachingJwtDecoder} hands out the same {@link Jwt}
+ * instance for a reused token, so the authorities are cached per instance and dropped together
+ * with it. Authorities are interned, every role maps to exactly one instance.
+ */
 public class CustomAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
+
+  private final Map<String, GrantedAuthority> authoritiesByRole = new ConcurrentHashMap<>();
+  private final Cache<Jwt, Collection<GrantedAuthority>> authoritiesByJwt;
+
+  public CustomAuthenticationConverter(long maximumSize) {
+    this.authoritiesByJwt = Caffeine.newBuilder().weakKeys().maximumSize(maximumSize).build();
+  }
+
   public AbstractAuthenticationToken convert(Jwt jwt) {
-    Collection<GrantedAuthority> authorities = extractAuthorities(jwt);
+    Collection<GrantedAuthority> authorities = authoritiesByJwt.get(jwt, this::extractAuthorities);
     return new JwtAuthenticationToken(jwt, authorities);
   }
 
   private Collection<GrantedAuthority> extractAuthorities(Jwt jwt) {
     Collection<GrantedAuthority> grantedAuthorities = new ArrayList<>();
     for (String role : getRoles(jwt)) {
-      grantedAuthorities.add(new SimpleGrantedAuthority("ROLE_" + role));
+      grantedAuthorities.add(
+          authoritiesByRole.computeIfAbsent(
+              role, key -> new SimpleGrantedAuthority("ROLE_" + key)));
     }
-    return grantedAuthorities;
+    return List.copyOf(grantedAuthorities);
   }
 
   private Collection<String> getRoles(Jwt jwt) {
@@ -0,0 +1,50 @@
+package de.rieckpil.courses.config;
+
+import java.time.Duration;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+/** Replaces the lazily discovering JwtDecoder of Spring Boot with one backed by the JwksManager. */
+@Configuration
+@ConditionalOnProperty(name = "security.jwks.enabled", havingValue = "true")
+public class JwksConfig {
+
+  @Bean
+  public JwksManager jwksManager(
+      @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuer,
+      @Value("${security.jwks.location:}") String location,
+      @Value("${security.jwks.min-refresh-interval:30s}") Duration minRefreshInterval,
+      @Value("${security.jwks.timeout:5s}") Duration timeout,
+      ResourceLoader resourceLoader,
+      MeterRegistry meterRegistry) {
+    return new JwksManager(
+        issuer, location, minRefreshInterval, timeout, resourceLoader, meterRegistry);
+  }
+
+  @Bean
+  public JwtDecoder jwtDecoder(
+      JwksManager jwksManager,
+      @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuer) {
+    DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+    jwtProcessor.setJWSKeySelector(
+        new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwksManager));
+    // the claims are validated by the JwtDecoder
+    jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {});
+
+    NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+    jwtDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuer));
+    return jwtDecoder;
+  }
+}
@@ -0,0 +1,213 @@
+package de.rieckpil.courses.config;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Keeps the JSON Web Key Set of the authorization server in memory, so that no request waits for
+ * the OIDC discovery or a JWKS download. The keys are fetched at startup and refreshed in the
+ * background every {@code security.jwks.refresh-interval}. A failed refresh keeps the last known
+ * keys in use. A token signed with an unknown key, e.g. right after a key rotation, triggers an
+ * immediate refresh, at most once per {@code security.jwks.min-refresh-interval}.
+ *
+ * <p>The keys are discovered through the issuer unless {@code security.jwks.location} points to a
+ * JWKS directly, which may also be a local file standing in for the authorization server.
+ */
+public class JwksManager implements JWKSource<SecurityContext> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JwksManager.class.getName());
+
+  private final String issuer;
+  private final Duration minRefreshInterval;
+  private final Duration timeout;
+  private final ResourceLoader resourceLoader;
+  private final HttpClient httpClient;
+  private final Timer successfulRefreshes;
+  private final Timer failedRefreshes;
+  private final ReentrantLock refreshLock = new ReentrantLock();
+
+  private volatile String jwkSetLocation;
+  private volatile JWKSet keys;
+  private volatile Instant lastRefreshAttempt = Instant.EPOCH;
+  private volatile Instant lastSuccessfulRefresh;
+
+  public JwksManager(
+      String issuer,
+      String jwkSetLocation,
+      Duration minRefreshInterval,
+      Duration timeout,
+      ResourceLoader resourceLoader,
+      MeterRegistry meterRegistry) {
+    this.issuer = issuer;
+    this.jwkSetLocation =
+        jwkSetLocation == null || jwkSetLocation.isBlank() ? null : jwkSetLocation;
+    this.minRefreshInterval = minRefreshInterval;
+    this.timeout = timeout;
+    this.resourceLoader = resourceLoader;
+    this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    this.successfulRefreshes = refreshTimer(meterRegistry, "success");
+    this.failedRefreshes = refreshTimer(meterRegistry, "failure");
+
+    Gauge.builder("security.jwks.keys", this, JwksManager::getKeyCount)
+        .description("Number of JSON Web Keys in use")
+        .register(meterRegistry);
+    Gauge.builder("security.jwks.age", this, JwksManager::getAgeInSeconds)
+        .description("Seconds since the JSON Web Keys were last refreshed")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  public void prefetch() {
+    if (!refresh()) {
+      LOG.warn("No JSON Web Keys available at startup, retrying on the first request");
+    }
+  }
+
+  @Scheduled(
+      fixedDelayString = "${security.jwks.refresh-interval:5m}",
+      initialDelayString = "${security.jwks.refresh-interval:5m}")
+  public void refreshInBackground() {
+    refresh();
+  }
+
+  @Override
+  public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+    List<JWK> matches = select(jwkSelector);
+
+    if (matches.isEmpty() && refreshForUnknownKey()) {
+      matches = select(jwkSelector);
+    }
+
+    return matches;
+  }
+
+  public boolean refresh() {
+    refreshLock.lock();
+    try {
+      lastRefreshAttempt = Instant.now();
+      long start = System.nanoTime();
+
+      try {
+        JWKSet fetchedKeys = JWKSet.parse(fetchJwkSet()).toPublicJWKSet();
+
+        keys = fetchedKeys;
+        lastSuccessfulRefresh = Instant.now();
+        successfulRefreshes.record(Duration.ofNanos(System.nanoTime() - start));
+        LOG.debug("Refreshed {} JSON Web Key(s)", fetchedKeys.size());
+        return true;
+      } catch (IOException | ParseException | RuntimeException e) {
+        failedRefreshes.record(Duration.ofNanos(System.nanoTime() - start));
+        LOG.warn("Failed to refresh the JSON Web Keys, keeping {} known key(s)", getKeyCount(), e);
+        return false;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  private boolean refreshForUnknownKey() {
+    // a refresh by another thread may already bring the key, wait for it instead of starting one
+    if (!refreshLock.tryLock()) {
+      refreshLock.lock();
+      refreshLock.unlock();
+      return true;
+    }
+
+    try {
+      if (lastRefreshAttempt.plus(minRefreshInterval).isAfter(Instant.now())) {
+        return false;
+      }
+      return refresh();
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  private List<JWK> select(JWKSelector jwkSelector) {
+    JWKSet currentKeys = keys;
+    return currentKeys == null ? List.of() : jwkSelector.select(currentKeys);
+  }
+
+  private String fetchJwkSet() throws IOException, InterruptedException, ParseException {
+    if (jwkSetLocation == null) {
+      jwkSetLocation = discoverJwkSetLocation();
+    }
+    return read(jwkSetLocation);
+  }
+
+  private String discoverJwkSetLocation()
+      throws IOException, InterruptedException, ParseException {
+    String configuration = read(issuer.replaceAll("/$", "") + "/.well-known/openid-configuration");
+    String location = JSONObjectUtils.getString(JSONObjectUtils.parse(configuration), "jwks_uri");
+
+    if (location == null) {
+      throw new IOException("The OpenID configuration of '" + issuer + "' contains no jwks_uri");
+    }
+
+    return location;
+  }
+
+  private String read(String location) throws IOException, InterruptedException {
+    if (!location.startsWith("http://") && !location.startsWith("https://")) {
+      return resourceLoader.getResource(location).getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    HttpResponse<String> response =
+        httpClient.send(
+            HttpRequest.newBuilder(URI.create(location)).timeout(timeout).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+
+    if (response.statusCode() != 200) {
+      throw new IOException("Unexpected status " + response.statusCode() + " from " + location);
+    }
+
+    return response.body();
+  }
+
+  private int getKeyCount() {
+    JWKSet currentKeys = keys;
+    return currentKeys == null ? 0 : currentKeys.size();
+  }
+
+  private double getAgeInSeconds() {
+    Instant refreshedAt = lastSuccessfulRefresh;
+    return refreshedAt == null
+        ? Double.NaN
+        : Duration.between(refreshedAt, Instant.now()).toMillis() / 1000.0;
+  }
+
+  private static Timer refreshTimer(MeterRegistry meterRegistry, String outcome) {
+    return Timer.builder("security.jwks.refresh")
+        .description("Latency of fetching the JSON Web Keys")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
@@ -30,6 +30,8 @@ public class WebClientConfig {
     return webClientBuilder
         .baseUrl(openLibraryBaseUrl)
         .clientConnector(new ReactorClientHttpConnector(httpClient))
+        // batched bibkeys responses easily exceed the default limit of 256 KB
+        .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(4 * 1024 * 1024))
         .build();
   }
 }
@@ -1,5 +1,6 @@
 package de.rieckpil.courses.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
@@ -10,6 +11,7 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
@@ -17,7 +19,11 @@ import org.springframework.security.web.SecurityFilterChain;
 public class WebSecurityConfig {
 
   @Bean
-  public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity) throws Exception {
+  public SecurityFilterChain securityFilterChain(
+      HttpSecurity httpSecurity,
+      JwtDecoder jwtDecoder,
+      @Value("${security.jwt-cache.maximum-size:10000}") long jwtCacheMaximumSize)
+      throws Exception {
     httpSecurity
         .authorizeHttpRequests(
             authorize ->
@@ -40,7 +46,10 @@ public class WebSecurityConfig {
         .oauth2ResourceServer(
             oauth2 ->
                 oauth2.jwt(
-                    jwt -> jwt.jwtAuthenticationConverter(new CustomAuthenticationConverter())));
+                    jwt ->
+                        jwt.decoder(new CachingJwtDecoder(jwtDecoder, jwtCacheMaximumSize))
+                            .jwtAuthenticationConverter(
+                                new CustomAuthenticationConverter(jwtCacheMaximumSize))));
 
     return httpSecurity.build();
   }
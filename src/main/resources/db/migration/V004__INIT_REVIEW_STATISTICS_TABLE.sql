@@ -0,0 +1,24 @@
+CREATE TABLE review_statistics (
+  book_id BIGINT PRIMARY KEY REFERENCES books ON DELETE CASCADE,
+  ratings BIGINT NOT NULL,
+  rating_sum BIGINT NOT NULL,
+  -- number of reviews per rating, the review count for rating r is stored at index r + 1
+  rating_histogram BIGINT[] NOT NULL
+);
+
+INSERT INTO review_statistics (book_id, ratings, rating_sum, rating_histogram)
+SELECT
+  book_id,
+  COUNT(*),
+  SUM(rating),
+  ARRAY(
+    SELECT COUNT(bucket_reviews.id)
+    FROM generate_series(0, MAX(reviews.rating)) AS bucket
+    LEFT JOIN reviews AS bucket_reviews
+      ON bucket_reviews.book_id = reviews.book_id AND bucket_reviews.rating = bucket
+    GROUP BY bucket
+    ORDER BY bucket
+  )
+FROM reviews
+WHERE book_id IS NOT NULL
+GROUP BY book_id;
@@ -0,0 +1,2 @@
+-- supports the keyset pagination of reviews on (created_at, id)
+CREATE INDEX reviews_created_at_id_idx ON reviews (created_at DESC, id DESC);
@@ -0,0 +1,4 @@
+ALTER TABLE reviews ADD COLUMN status VARCHAR(16) NOT NULL DEFAULT 'PUBLISHED';
+
+-- the moderation only ever polls the few pending reviews
+CREATE INDEX reviews_pending_idx ON reviews (id) WHERE status = 'PENDING';
@@ -0,0 +1,20 @@
+-- Hibernate can't batch inserts of identity columns, the entities draw their ids from these
+-- sequences in blocks of 50 instead. Plain SQL inserts take a sequence value as well, the
+-- increment has to match the allocationSize of the entities.
+CREATE SEQUENCE books_seq INCREMENT BY 50 OWNED BY books.id;
+CREATE SEQUENCE users_seq INCREMENT BY 50 OWNED BY users.id;
+CREATE SEQUENCE reviews_seq INCREMENT BY 50 OWNED BY reviews.id;
+
+ALTER TABLE books ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE reviews ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE books ALTER COLUMN id SET DEFAULT nextval('books_seq');
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+ALTER TABLE reviews ALTER COLUMN id SET DEFAULT nextval('reviews_seq');
+
+-- a sequence value is the upper end of the block Hibernate hands out, start one block past the
+-- existing ids
+SELECT setval('books_seq', COALESCE(MAX(id), 0) + 50, false) FROM books;
+SELECT setval('users_seq', COALESCE(MAX(id), 0) + 50, false) FROM users;
+SELECT setval('reviews_seq', COALESCE(MAX(id), 0) + 50, false) FROM reviews;
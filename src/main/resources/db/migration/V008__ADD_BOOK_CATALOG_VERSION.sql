@@ -0,0 +1,31 @@
+-- counts the changes of the book catalog for the ETag of the book endpoints, the version is
+-- bumped within the transaction of the change, so every application instance reads the same one
+CREATE TABLE book_catalog_version (
+  id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+  version BIGINT NOT NULL
+);
+
+INSERT INTO book_catalog_version (version) VALUES (0);
+
+-- bumps the version once per transaction, the flag is local to the transaction
+CREATE FUNCTION increment_book_catalog_version() RETURNS TRIGGER AS $$
+BEGIN
+  IF current_setting('book_catalog.version_incremented', TRUE) IS DISTINCT FROM 'true' THEN
+    UPDATE book_catalog_version SET version = version + 1;
+    PERFORM set_config('book_catalog.version_incremented', 'true', TRUE);
+  END IF;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- row level, an upsert that didn't insert anything keeps the version. Deferred to the commit, so
+-- concurrent writers only queue for the version row while they commit, not for their whole
+-- transaction
+CREATE CONSTRAINT TRIGGER books_changed
+  AFTER INSERT OR UPDATE OR DELETE ON books
+  DEFERRABLE INITIALLY DEFERRED
+  FOR EACH ROW EXECUTE FUNCTION increment_book_catalog_version();
+
+CREATE TRIGGER books_truncated
+  AFTER TRUNCATE ON books
+  FOR EACH STATEMENT EXECUTE FUNCTION increment_book_catalog_version();
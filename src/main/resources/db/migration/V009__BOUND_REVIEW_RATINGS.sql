@@ -0,0 +1,41 @@
+-- the histogram of the review statistics has a bucket per rating, an unbounded rating would
+-- allocate a bucket for every value below it. Existing out-of-range ratings are clamped first and
+-- the statistics of their books rebuilt, so the constraints hold for every row, not only new ones.
+CREATE TEMPORARY TABLE books_with_unbounded_ratings ON COMMIT DROP AS
+SELECT DISTINCT book_id
+FROM reviews
+WHERE book_id IS NOT NULL AND rating NOT BETWEEN 0 AND 5
+UNION
+SELECT book_id
+FROM review_statistics
+WHERE cardinality(rating_histogram) > 6;
+
+UPDATE reviews SET rating = GREATEST(0, LEAST(5, rating)) WHERE rating NOT BETWEEN 0 AND 5;
+
+DELETE FROM review_statistics
+WHERE book_id IN (SELECT book_id FROM books_with_unbounded_ratings);
+
+INSERT INTO review_statistics (book_id, ratings, rating_sum, rating_histogram)
+SELECT
+  book_id,
+  COUNT(*),
+  SUM(rating),
+  ARRAY(
+    SELECT COUNT(bucket_reviews.id)
+    FROM generate_series(0, MAX(reviews.rating)) AS bucket
+    LEFT JOIN reviews AS bucket_reviews
+      ON bucket_reviews.book_id = reviews.book_id
+      AND bucket_reviews.rating = bucket
+      AND bucket_reviews.status = 'PUBLISHED'
+    GROUP BY bucket
+    ORDER BY bucket
+  )
+FROM reviews
+WHERE status = 'PUBLISHED' AND book_id IN (SELECT book_id FROM books_with_unbounded_ratings)
+GROUP BY book_id;
+
+ALTER TABLE reviews
+  ADD CONSTRAINT reviews_rating_range CHECK (rating BETWEEN 0 AND 5);
+
+ALTER TABLE review_statistics
+  ADD CONSTRAINT review_statistics_histogram_size CHECK (cardinality(rating_histogram) <= 6);
@@ -0,0 +1,108 @@
+package de.rieckpil.courses.book.management;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+  @Test
+  @DisplayName("should reject calls when limit and queue are exhausted")
+  void shouldRejectCallsWhenLimitAndQueueAreExhausted() {
+    AdaptiveConcurrencyLimiter cut =
+        new AdaptiveConcurrencyLimiter(1, 1, 10, 0, Duration.ofSeconds(1), error -> true);
+
+    Disposable pendingCall = cut.limit(Mono.never()).subscribe();
+
+    assertEquals(1, cut.getInFlight());
+    assertThrows(
+        OpenLibraryUnavailableException.class, () -> cut.limit(Mono.just("42")).block());
+    assertEquals(1, cut.getRejections());
+
+    pendingCall.dispose();
+    assertEquals(0, cut.getInFlight());
+  }
+
+  @Test
+  @DisplayName("should admit queued calls once a permit is released")
+  void shouldAdmitQueuedCallsOncePermitIsReleased() {
+    AdaptiveConcurrencyLimiter cut =
+        new AdaptiveConcurrencyLimiter(1, 1, 1, 1, Duration.ofSeconds(1), error -> true);
+
+    Sinks.One<String> firstResponse = Sinks.one();
+    cut.limit(firstResponse.asMono()).subscribe();
+
+    Mono<String> queuedCall = cut.limit(Mono.just("42")).cache();
+    queuedCall.subscribe();
+    assertEquals(1, cut.getQueueDepth());
+
+    firstResponse.tryEmitValue("41");
+
+    assertEquals("42", queuedCall.block(Duration.ofSeconds(1)));
+    assertEquals(0, cut.getQueueDepth());
+  }
+
+  @Test
+  @DisplayName("should not hold a permit for cancelled queued calls")
+  void shouldNotHoldPermitForCancelledQueuedCalls() {
+    AdaptiveConcurrencyLimiter cut =
+        new AdaptiveConcurrencyLimiter(1, 1, 1, 1, Duration.ofSeconds(1), error -> true);
+
+    Sinks.One<String> firstResponse = Sinks.one();
+    cut.limit(firstResponse.asMono()).subscribe();
+
+    Disposable queuedCall = cut.limit(Mono.just("42")).subscribe();
+    queuedCall.dispose();
+    assertEquals(0, cut.getQueueDepth());
+
+    firstResponse.tryEmitValue("41");
+
+    assertEquals(0, cut.getInFlight());
+    assertEquals("43", cut.limit(Mono.just("43")).block(Duration.ofSeconds(1)));
+  }
+
+  @Test
+  @DisplayName("should lower the limit when calls fail")
+  void shouldLowerLimitWhenCallsFail() {
+    AdaptiveConcurrencyLimiter cut =
+        new AdaptiveConcurrencyLimiter(20, 1, 200, 0, Duration.ofSeconds(1), error -> true);
+
+    assertThrows(
+        IllegalStateException.class,
+        () -> cut.limit(Mono.error(new IllegalStateException("timeout"))).block());
+
+    assertEquals(18, cut.getLimit());
+  }
+
+  @Test
+  @DisplayName("should keep the limit when calls fail with errors that are not recorded")
+  void shouldKeepLimitWhenCallsFailWithErrorsThatAreNotRecorded() {
+    AdaptiveConcurrencyLimiter cut =
+        new AdaptiveConcurrencyLimiter(
+            20, 1, 200, 0, Duration.ofSeconds(1), error -> !(error instanceof IllegalArgumentException));
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> cut.limit(Mono.error(new IllegalArgumentException("not found"))).block());
+
+    assertEquals(20, cut.getLimit());
+    assertEquals(0, cut.getInFlight());
+  }
+
+  @Test
+  @DisplayName("should raise the limit when calls succeed while the limit is in use")
+  void shouldRaiseLimitWhenCallsSucceedWhileLimitIsInUse() {
+    AdaptiveConcurrencyLimiter cut =
+        new AdaptiveConcurrencyLimiter(1, 1, 200, 0, Duration.ofSeconds(1), error -> true);
+
+    cut.limit(Mono.just("42")).block();
+
+    assertEquals(2, cut.getLimit());
+  }
+}
@@ -0,0 +1,36 @@
+package de.rieckpil.courses.book.management;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookCatalogVersionTest {
+
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @InjectMocks private BookCatalogVersion cut;
+
+  @Test
+  @DisplayName("should serve the version from memory until it is refreshed")
+  void shouldServeVersionFromMemoryUntilRefreshed() {
+    when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(42L, 43L);
+
+    assertEquals(42L, cut.current());
+    assertEquals(42L, cut.current());
+
+    cut.refresh();
+
+    assertEquals(43L, cut.current());
+    verify(jdbcTemplate, times(2)).queryForObject(anyString(), eq(Long.class));
+  }
+}
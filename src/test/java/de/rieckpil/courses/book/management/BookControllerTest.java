@@ -45,6 +45,34 @@ class BookControllerTest {
       .andReturn();
   }
 
+  @Test
+  @DisplayName("should answer with not modified without reading the books when the ETag matches")
+  void shouldAnswerNotModifiedWhenETagMatches() throws Exception {
+    when(bookManagementService.getCatalogVersion()).thenReturn(42L);
+
+    this.mockMvc
+      .perform(MockMvcRequestBuilders.get("/api/books")
+        .header(HttpHeaders.IF_NONE_MATCH, "\"books-42\""))
+      .andExpect(status().isNotModified())
+      .andExpect(header().string(HttpHeaders.ETAG, "\"books-42\""))
+      .andExpect(content().string(""));
+
+    Mockito.verify(bookManagementService, Mockito.never()).getAllBooks();
+  }
+
+  @Test
+  @DisplayName("should return the books with their ETag when the catalog changed")
+  void shouldReturnBooksWithETagWhenCatalogChanged() throws Exception {
+    when(bookManagementService.getCatalogVersion()).thenReturn(43L);
+    when(bookManagementService.getAllBooks()).thenReturn(List.of());
+
+    this.mockMvc
+      .perform(MockMvcRequestBuilders.get("/api/books")
+        .header(HttpHeaders.IF_NONE_MATCH, "\"books-42\""))
+      .andExpect(status().isOk())
+      .andExpect(header().string(HttpHeaders.ETAG, "\"books-43\""));
+  }
+
   @Test
   @DisplayName("shouldn't return XML")
   void shouldNotReturnXML() throws Exception {
@@ -77,6 +105,41 @@ class BookControllerTest {
       .andReturn();
   }
 
+  @Test
+  @DisplayName("should return next page link when paginating with a cursor")
+  void shouldReturnNextPageLinkWhenPaginatingWithCursor() throws Exception {
+
+    Book book = createBook(43L, "43", "Java 25", "Taha", "Master Java",
+      "Software Engineering", 200L, "Oracle", "https://java.com/25");
+
+    when(bookManagementService.getBooksAfter(0L, 42L, 1)).thenReturn(List.of(book));
+
+    this.mockMvc
+      .perform(MockMvcRequestBuilders.get("/api/books")
+        .param("after", "42")
+        .param("limit", "1")
+        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.size()", Matchers.is(1)))
+      .andExpect(jsonPath("$.[0].isbn", Matchers.is("43")))
+      .andExpect(header().string(HttpHeaders.LINK, Matchers.containsString("after=43")))
+      .andExpect(header().string(HttpHeaders.LINK, Matchers.endsWith("rel=\"next\"")));
+  }
+
+  @Test
+  @DisplayName("shouldn't return next page link when the last page is reached")
+  void shouldNotReturnNextPageLinkWhenLastPageIsReached() throws Exception {
+    when(bookManagementService.getBooksAfter(0L, 42L, null)).thenReturn(List.of());
+
+    this.mockMvc
+      .perform(MockMvcRequestBuilders.get("/api/books")
+        .param("after", "42")
+        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.size()", Matchers.is(0)))
+      .andExpect(header().doesNotExist(HttpHeaders.LINK));
+  }
+
   private Book createBook(
       Long id,
       String isbn,
@@ -0,0 +1,98 @@
+package de.rieckpil.courses.book.management;
+
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Limit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookManagementServiceTest {
+
+  @Mock private BookRepository bookRepository;
+
+  @Mock private EntityManager entityManager;
+
+  @Mock private BookCatalogVersion bookCatalogVersion;
+
+  private final CacheManager cacheManager = new ConcurrentMapCacheManager("books");
+
+  private BookManagementService cut;
+
+  @BeforeEach
+  void setup() {
+    cut = new BookManagementService(bookRepository, entityManager, bookCatalogVersion, cacheManager);
+  }
+
+  @Test
+  @DisplayName("should serve a page from the cache while the catalog version is unchanged")
+  void shouldServePageFromCacheWhileCatalogVersionIsUnchanged() {
+    when(bookRepository.findByIdGreaterThanOrderByIdAsc(42L, Limit.of(1)))
+      .thenReturn(List.of(createBook(43L, "Java 25")));
+
+    assertEquals("Java 25", cut.getBooksAfter(1L, 42L, 1).get(0).getTitle());
+    assertEquals("Java 25", cut.getBooksAfter(1L, 42L, 1).get(0).getTitle());
+
+    verify(bookRepository, times(1)).findByIdGreaterThanOrderByIdAsc(42L, Limit.of(1));
+  }
+
+  @Test
+  @DisplayName("should read the page again for a new catalog version or once the cache is evicted")
+  void shouldReadPageAgainForNewCatalogVersionOrOnceEvicted() {
+    when(bookRepository.findByIdGreaterThanOrderByIdAsc(42L, Limit.of(1)))
+      .thenReturn(List.of(createBook(43L, "Java 25")));
+
+    cut.getBooksAfter(1L, 42L, 1);
+    cut.getBooksAfter(2L, 42L, 1);
+
+    // as done by the @CacheEvict of the BookRepository writes
+    cacheManager.getCache("books").clear();
+    cut.getBooksAfter(2L, 42L, 1);
+
+    verify(bookRepository, times(3)).findByIdGreaterThanOrderByIdAsc(42L, Limit.of(1));
+  }
+
+  @Test
+  @DisplayName("should hand out copies of the cached books")
+  void shouldHandOutCopiesOfCachedBooks() {
+    when(bookRepository.findByIdGreaterThanOrderByIdAsc(42L, Limit.of(1)))
+      .thenReturn(List.of(createBook(43L, "Java 25")));
+
+    Book book = cut.getBooksAfter(1L, 42L, 1).get(0);
+    book.setTitle("Changed by a caller");
+
+    Book cachedBook = cut.getBooksAfter(1L, 42L, 1).get(0);
+    assertNotSame(book, cachedBook);
+    assertEquals("Java 25", cachedBook.getTitle());
+    assertEquals(43L, cachedBook.getId());
+  }
+
+  @Test
+  @DisplayName("should not cache the whole catalog")
+  void shouldNotCacheWholeCatalog() {
+    when(bookRepository.findAll()).thenReturn(List.of());
+
+    cut.getAllBooks();
+    cut.getAllBooks();
+
+    verify(bookRepository, times(2)).findAll();
+  }
+
+  private Book createBook(Long id, String title) {
+    Book book = new Book();
+    book.setId(id);
+    book.setIsbn(String.valueOf(id));
+    book.setTitle(title);
+    return book;
+  }
+}
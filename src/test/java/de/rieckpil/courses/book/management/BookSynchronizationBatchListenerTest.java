@@ -0,0 +1,88 @@
+package de.rieckpil.courses.book.management;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookSynchronizationBatchListenerTest {
+
+  private static final String EXISTING_ISBN = "1234567891234";
+  private static final String NEW_ISBN = "1234567891235";
+
+  @Mock private BookRepository bookRepository;
+
+  @Mock private OpenLibraryApiClient openLibraryApiClient;
+
+  @Mock private OpenLibraryNegativeCache openLibraryNegativeCache;
+
+  @InjectMocks private BookSynchronizationBatchListener cut;
+
+  @Captor private ArgumentCaptor<Iterable<Book>> booksArgumentCaptor;
+
+  @Test
+  @DisplayName("should reject malformed ISBNs without touching the database")
+  void shouldRejectMalformedIsbnsWithoutTouchingTheDatabase() {
+    cut.consumeBookUpdates(List.of(new BookSynchronization("42"), new BookSynchronization("43")))
+      .join();
+
+    verifyNoInteractions(bookRepository, openLibraryApiClient);
+  }
+
+  @Test
+  @DisplayName("should only fetch and store books that are new")
+  void shouldOnlyFetchAndStoreBooksThatAreNew() {
+    when(bookRepository.findExistingIsbns(Set.of(EXISTING_ISBN, NEW_ISBN)))
+      .thenReturn(Set.of(EXISTING_ISBN));
+
+    Book newBook = new Book();
+    newBook.setIsbn(NEW_ISBN);
+    when(openLibraryApiClient.fetchMetadataForBooksAsync(Set.of(NEW_ISBN)))
+      .thenReturn(Flux.just(newBook));
+
+    cut.consumeBookUpdates(
+      List.of(
+        new BookSynchronization(EXISTING_ISBN),
+        new BookSynchronization(NEW_ISBN),
+        new BookSynchronization(NEW_ISBN)))
+      .join();
+
+    verify(bookRepository).saveAll(booksArgumentCaptor.capture());
+    assertThat(booksArgumentCaptor.getValue()).containsExactly(newBook);
+  }
+
+  @Test
+  @DisplayName("shouldn't call OpenLibrary when all books already exist")
+  void shouldNotCallOpenLibraryWhenAllBooksAlreadyExist() {
+    when(bookRepository.findExistingIsbns(Set.of(EXISTING_ISBN))).thenReturn(Set.of(EXISTING_ISBN));
+
+    cut.consumeBookUpdates(List.of(new BookSynchronization(EXISTING_ISBN))).join();
+
+    verifyNoInteractions(openLibraryApiClient);
+    verify(bookRepository, never()).saveAll(any());
+  }
+
+  @Test
+  @DisplayName("should remember ISBNs OpenLibrary has no metadata for")
+  void shouldRememberIsbnsOpenLibraryHasNoMetadataFor() {
+    when(bookRepository.findExistingIsbns(Set.of(NEW_ISBN))).thenReturn(Set.of());
+    when(openLibraryApiClient.fetchMetadataForBooksAsync(Set.of(NEW_ISBN))).thenReturn(Flux.empty());
+
+    cut.consumeBookUpdates(List.of(new BookSynchronization(NEW_ISBN))).join();
+
+    verify(openLibraryNegativeCache).recordMissing(NEW_ISBN);
+  }
+}
@@ -59,6 +59,10 @@ class BookSynchronizationListenerSliceNewTest {
 
   @MockitoBean private OpenLibraryApiClient openLibraryApiClient;
 
+  @MockitoBean private OpenLibraryBatchLoader openLibraryBatchLoader;
+
+  @MockitoBean private OpenLibraryNegativeCache openLibraryNegativeCache;
+
   @Test
   void shouldConsumeMessageWhenPayloadIsCorrect() {}
 }
@@ -75,6 +75,10 @@ class BookSynchronizationListenerSliceTest {
 
   @MockitoBean private OpenLibraryApiClient openLibraryApiClient;
 
+  @MockitoBean private OpenLibraryBatchLoader openLibraryBatchLoader;
+
+  @MockitoBean private OpenLibraryNegativeCache openLibraryNegativeCache;
+
   @Test
   void shouldStartSQS() {}
 
@@ -1,5 +1,10 @@
 package de.rieckpil.courses.book.management;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,8 +15,13 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -21,7 +31,9 @@ class BookSynchronizationListenerTest {
 
   @Mock private BookRepository bookRepository;
 
-  @Mock private OpenLibraryApiClient openLibraryApiClient;
+  @Mock private OpenLibraryBatchLoader openLibraryBatchLoader;
+
+  @Mock private OpenLibraryNegativeCache openLibraryNegativeCache;
 
   @InjectMocks private BookSynchronizationListener cut;
 
@@ -31,9 +43,9 @@ class BookSynchronizationListenerTest {
   @DisplayName("should reject book when ISBN is malformed")
   void shouldRejectBookWhenIsbnIsMalformed() {
     BookSynchronization bookSynchronization = new BookSynchronization("32");
-    cut.consumeBookUpdates(bookSynchronization);
+    cut.consumeBookUpdates(bookSynchronization).join();
 
-    verifyNoInteractions(openLibraryApiClient, bookRepository);
+    verifyNoInteractions(openLibraryBatchLoader, bookRepository);
   }
 
   @Test
@@ -41,10 +53,34 @@ class BookSynchronizationListenerTest {
   void shouldNotOverrideWhenBookAlreadyExists() {
     BookSynchronization bookSynchronization = new BookSynchronization(VALID_ISBN);
     when(bookRepository.findByIsbn(VALID_ISBN)).thenReturn(new Book());
-    cut.consumeBookUpdates(bookSynchronization);
+    cut.consumeBookUpdates(bookSynchronization).join();
 
-    verifyNoInteractions(openLibraryApiClient);
+    verifyNoInteractions(openLibraryBatchLoader);
     verify(bookRepository, times(0)).save(ArgumentMatchers.any());
+    verify(bookRepository, times(0)).insertIfAbsent(ArgumentMatchers.any());
+  }
+
+  @Test
+  @DisplayName("should reject book when OpenLibrary is known to have no metadata")
+  void shouldRejectBookWhenOpenLibraryIsKnownToHaveNoMetadata() {
+    when(openLibraryNegativeCache.isKnownMissing(VALID_ISBN)).thenReturn(true);
+
+    cut.consumeBookUpdates(new BookSynchronization(VALID_ISBN)).join();
+
+    verifyNoInteractions(openLibraryBatchLoader, bookRepository);
+  }
+
+  @Test
+  @DisplayName("should remember ISBN when OpenLibrary has no metadata")
+  void shouldRememberIsbnWhenOpenLibraryHasNoMetadata() {
+    when(bookRepository.findByIsbn(VALID_ISBN)).thenReturn(null);
+    when(openLibraryBatchLoader.fetchMetadataForBookAsync(VALID_ISBN))
+      .thenReturn(Mono.error(new OpenLibraryMetadataNotFoundException(VALID_ISBN)));
+
+    Assertions.assertDoesNotThrow(() -> cut.consumeBookUpdates(new BookSynchronization(VALID_ISBN)).join());
+
+    verify(openLibraryNegativeCache).recordMissing(VALID_ISBN);
+    verify(bookRepository, times(0)).insertIfAbsent(ArgumentMatchers.any());
   }
 
   @Test
@@ -52,9 +88,10 @@ class BookSynchronizationListenerTest {
   void shouldThrowExceptionWhenProcessingFails() {
     BookSynchronization bookSynchronization = new BookSynchronization(VALID_ISBN);
     when(bookRepository.findByIsbn(VALID_ISBN)).thenReturn(null);
-    when(openLibraryApiClient.fetchMetadataForBook(VALID_ISBN)).thenThrow(new RuntimeException("Network timeout"));
+    when(openLibraryBatchLoader.fetchMetadataForBookAsync(VALID_ISBN))
+      .thenReturn(Mono.error(new RuntimeException("Network timeout")));
 
-    Assertions.assertThrows(RuntimeException.class, () -> cut.consumeBookUpdates(bookSynchronization));
+    Assertions.assertThrows(CompletionException.class, () -> cut.consumeBookUpdates(bookSynchronization).join());
   }
 
   @Test
@@ -67,19 +104,62 @@ class BookSynchronizationListenerTest {
     requestedBook.setTitle("Head First Design Patterns");
     requestedBook.setIsbn(VALID_ISBN);
 
-    when(openLibraryApiClient.fetchMetadataForBook(VALID_ISBN)).thenReturn(requestedBook);
-    when(bookRepository.save(ArgumentMatchers.any())).then(invocation -> {
-        Book methodArgument = invocation.getArgument(0);
-        methodArgument.setId(1L);
-        return methodArgument;
-      });
+    when(openLibraryBatchLoader.fetchMetadataForBookAsync(VALID_ISBN)).thenReturn(Mono.just(requestedBook));
+    when(bookRepository.insertIfAbsent(ArgumentMatchers.any())).thenReturn(1);
 
-    cut.consumeBookUpdates(bookSynchronization);
+    cut.consumeBookUpdates(bookSynchronization).join();
 
-    verify(bookRepository.save(bookArgumentCaptor.capture()));
+    verify(bookRepository).insertIfAbsent(bookArgumentCaptor.capture());
 
     Book methodArgument = bookArgumentCaptor.getValue();
     assertEquals(VALID_ISBN, methodArgument.getIsbn());
     assertEquals("Head First Design Patterns", methodArgument.getTitle());
   }
+
+  @Test
+  @DisplayName("should synchronize book only once when same ISBN arrives concurrently")
+  void shouldSynchronizeBookOnlyOnceWhenSameIsbnArrivesConcurrently() throws Exception {
+    CountDownLatch fetchStarted = new CountDownLatch(1);
+    CountDownLatch releaseFetch = new CountDownLatch(1);
+
+    Book requestedBook = new Book();
+    requestedBook.setIsbn(VALID_ISBN);
+
+    when(bookRepository.findByIsbn(VALID_ISBN)).thenReturn(null);
+    when(openLibraryBatchLoader.fetchMetadataForBookAsync(VALID_ISBN))
+      .thenReturn(Mono.fromCallable(() -> {
+        fetchStarted.countDown();
+        releaseFetch.await();
+        return requestedBook;
+      }).subscribeOn(Schedulers.boundedElastic()));
+    when(bookRepository.insertIfAbsent(requestedBook)).thenReturn(1);
+
+    CompletableFuture<Void> first = cut.consumeBookUpdates(new BookSynchronization(VALID_ISBN));
+    assertTrue(fetchStarted.await(5, TimeUnit.SECONDS));
+
+    CompletableFuture<Void> second = cut.consumeBookUpdates(new BookSynchronization(VALID_ISBN));
+
+    // the second message joined the fetch that is still in flight
+    assertSame(first, second);
+    assertFalse(first.isDone());
+
+    releaseFetch.countDown();
+    second.get(5, TimeUnit.SECONDS);
+
+    verify(openLibraryBatchLoader, times(1)).fetchMetadataForBookAsync(VALID_ISBN);
+    verify(bookRepository, times(1)).insertIfAbsent(requestedBook);
+  }
+
+  @Test
+  @DisplayName("shouldn't fail when book was stored by a concurrent synchronization")
+  void shouldNotFailWhenBookWasStoredByConcurrentSynchronization() {
+    Book requestedBook = new Book();
+    requestedBook.setIsbn(VALID_ISBN);
+
+    when(bookRepository.findByIsbn(VALID_ISBN)).thenReturn(null);
+    when(openLibraryBatchLoader.fetchMetadataForBookAsync(VALID_ISBN)).thenReturn(Mono.just(requestedBook));
+    when(bookRepository.insertIfAbsent(requestedBook)).thenReturn(0);
+
+    Assertions.assertDoesNotThrow(() -> cut.consumeBookUpdates(new BookSynchronization(VALID_ISBN)).join());
+  }
 }
@@ -0,0 +1,55 @@
+package de.rieckpil.courses.book.management;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+  private static final Mono<String> FAILING_CALL =
+      Mono.error(new IllegalStateException("OpenLibrary is down"));
+
+  @Test
+  @DisplayName("should fail fast once the failure threshold is reached")
+  void shouldFailFastOnceFailureThresholdIsReached() {
+    CircuitBreaker cut =
+        new CircuitBreaker(2, Duration.ofHours(1), error -> true, Clock.systemUTC());
+
+    assertThrows(IllegalStateException.class, () -> cut.protect(FAILING_CALL).block());
+    assertEquals(CircuitBreaker.State.CLOSED, cut.getState());
+
+    assertThrows(IllegalStateException.class, () -> cut.protect(FAILING_CALL).block());
+    assertEquals(CircuitBreaker.State.OPEN, cut.getState());
+
+    assertThrows(
+        OpenLibraryUnavailableException.class, () -> cut.protect(Mono.just("42")).block());
+  }
+
+  @Test
+  @DisplayName("should close again when the trial call succeeds")
+  void shouldCloseAgainWhenTrialCallSucceeds() {
+    CircuitBreaker cut = new CircuitBreaker(1, Duration.ZERO, error -> true, Clock.systemUTC());
+
+    assertThrows(IllegalStateException.class, () -> cut.protect(FAILING_CALL).block());
+    assertEquals(CircuitBreaker.State.OPEN, cut.getState());
+
+    assertEquals("42", cut.protect(Mono.just("42")).block());
+    assertEquals(CircuitBreaker.State.CLOSED, cut.getState());
+  }
+
+  @Test
+  @DisplayName("shouldn't open for failures that aren't recorded")
+  void shouldNotOpenForFailuresThatAreNotRecorded() {
+    CircuitBreaker cut =
+        new CircuitBreaker(1, Duration.ofHours(1), error -> false, Clock.systemUTC());
+
+    assertThrows(IllegalStateException.class, () -> cut.protect(FAILING_CALL).block());
+
+    assertEquals(CircuitBreaker.State.CLOSED, cut.getState());
+  }
+}
@@ -14,6 +14,8 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.netty.http.client.HttpClient;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -149,6 +151,41 @@ class OpenLibraryApiClientTest {
     assertNull(result.getId());
   }
 
+  @Test
+  @DisplayName("should fetch multiple books with a single request")
+  void shouldFetchMultipleBooksWithSingleRequest() throws InterruptedException {
+    String unknownIsbn = "9780321160768";
+
+    this.mockWebServer.enqueue(new MockResponse()
+      .addHeader("Content-Type", "application/json; charset=utf-8")
+      .setBody(VALID_RESPONSE));
+
+    Map<String, Book> result = cut.fetchMetadataForBooks(List.of(ISBN, unknownIsbn));
+
+    assertEquals(1, result.size());
+    assertEquals("Head first Java", result.get(ISBN).getTitle());
+    assertFalse(result.containsKey(unknownIsbn));
+
+    RecordedRequest recordedRequest = this.mockWebServer.takeRequest();
+    assertEquals(
+      "/api/books?jscmd=data&format=json&bibkeys=" + ISBN + "," + unknownIsbn,
+      recordedRequest.getPath());
+    assertEquals(1, this.mockWebServer.getRequestCount());
+  }
+
+  @Test
+  @DisplayName("should report metadata as missing when OpenLibrary doesn't know the ISBN")
+  void shouldReportMetadataAsMissingWhenOpenLibraryDoesNotKnowIsbn() {
+    this.mockWebServer.enqueue(new MockResponse().setResponseCode(404));
+    this.mockWebServer.enqueue(new MockResponse().setResponseCode(410));
+
+    assertThrows(OpenLibraryMetadataNotFoundException.class, () -> cut.fetchMetadataForBook(ISBN));
+    assertTrue(cut.fetchMetadataForBooks(List.of(ISBN)).isEmpty());
+
+    // permanent client errors aren't retried
+    assertEquals(2, this.mockWebServer.getRequestCount());
+  }
+
   @Test
   @DisplayName("should propagate exception when remote system is down")
   void shouldPropagateExceptionWhenRemoteSystemIsDown() {
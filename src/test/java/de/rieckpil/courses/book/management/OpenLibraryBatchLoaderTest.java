@@ -0,0 +1,68 @@
+package de.rieckpil.courses.book.management;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OpenLibraryBatchLoaderTest {
+
+  private static final String ISBN_ONE = "9780321751041";
+  private static final String ISBN_TWO = "9780321160768";
+
+  @Mock private OpenLibraryApiClient openLibraryApiClient;
+
+  private OpenLibraryBatchLoader cut;
+
+  @BeforeEach
+  void setup() {
+    cut = new OpenLibraryBatchLoader(openLibraryApiClient, 2, Duration.ofMillis(500), 4);
+  }
+
+  @AfterEach
+  void tearDown() {
+    cut.shutdown();
+  }
+
+  @Test
+  @DisplayName("should resolve concurrent lookups with a single request")
+  void shouldResolveConcurrentLookupsWithSingleRequest() {
+    when(openLibraryApiClient.fetchMetadataForBooksAsync(Set.of(ISBN_ONE, ISBN_TWO)))
+      .thenReturn(Flux.just(createBook(ISBN_ONE), createBook(ISBN_TWO)));
+
+    CompletableFuture<Book> first = CompletableFuture.supplyAsync(() -> cut.fetchMetadataForBook(ISBN_ONE));
+    CompletableFuture<Book> second = CompletableFuture.supplyAsync(() -> cut.fetchMetadataForBook(ISBN_TWO));
+
+    assertEquals(ISBN_ONE, first.join().getIsbn());
+    assertEquals(ISBN_TWO, second.join().getIsbn());
+    verify(openLibraryApiClient, times(1)).fetchMetadataForBooksAsync(anyCollection());
+  }
+
+  @Test
+  @DisplayName("should fail lookup when no metadata is available")
+  void shouldFailLookupWhenNoMetadataIsAvailable() {
+    when(openLibraryApiClient.fetchMetadataForBooksAsync(Set.of(ISBN_ONE))).thenReturn(Flux.empty());
+
+    assertThrows(
+        OpenLibraryMetadataNotFoundException.class, () -> cut.fetchMetadataForBook(ISBN_ONE));
+  }
+
+  private Book createBook(String isbn) {
+    Book book = new Book();
+    book.setIsbn(isbn);
+    book.setTitle("Book " + isbn);
+    return book;
+  }
+}
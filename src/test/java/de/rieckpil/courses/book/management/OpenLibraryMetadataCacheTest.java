@@ -0,0 +1,120 @@
+package de.rieckpil.courses.book.management;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenLibraryMetadataCacheTest {
+
+  private static final String ISBN = "9780596004651";
+  private static final String METADATA = "{\"title\":\"Head first Java\"}";
+
+  @TempDir private Path tempDir;
+
+  @Test
+  @DisplayName("should return stored metadata")
+  void shouldReturnStoredMetadata() throws IOException {
+    OpenLibraryMetadataCache cut = createCache(Duration.ofDays(1));
+
+    cut.put(ISBN, METADATA.getBytes());
+
+    assertEquals(METADATA, new String(cut.get(ISBN).orElseThrow()));
+    assertTrue(cut.get("9780321160768").isEmpty());
+  }
+
+  @Test
+  @DisplayName("should keep metadata across restarts")
+  void shouldKeepMetadataAcrossRestarts() throws IOException {
+    OpenLibraryMetadataCache cut = createCache(Duration.ofDays(1));
+    cut.put(ISBN, "{}".getBytes());
+    cut.put(ISBN, METADATA.getBytes());
+    cut.close();
+
+    OpenLibraryMetadataCache restarted = createCache(Duration.ofDays(1));
+
+    assertEquals(METADATA, new String(restarted.get(ISBN).orElseThrow()));
+  }
+
+  @Test
+  @DisplayName("shouldn't return metadata once expired")
+  void shouldNotReturnMetadataOnceExpired() throws IOException {
+    OpenLibraryMetadataCache cut = createCache(Duration.ofMillis(-1));
+
+    cut.put(ISBN, METADATA.getBytes());
+
+    assertTrue(cut.get(ISBN).isEmpty());
+  }
+
+  @Test
+  @DisplayName("should ignore metadata when capacity is exceeded")
+  void shouldIgnoreMetadataWhenCapacityIsExceeded() throws IOException {
+    OpenLibraryMetadataCache cut =
+        new OpenLibraryMetadataCache(
+            tempDir.resolve("metadata.cache").toString(), Duration.ofDays(1), DataSize.ofBytes(32));
+
+    cut.put(ISBN, METADATA.getBytes());
+
+    assertTrue(cut.get(ISBN).isEmpty());
+  }
+
+  @Test
+  @DisplayName("should compact the file to the live records once it is full")
+  void shouldCompactFileToLiveRecordsOnceItIsFull() throws IOException {
+    String location = tempDir.resolve("metadata.cache").toString();
+    OpenLibraryMetadataCache cut =
+        new OpenLibraryMetadataCache(location, Duration.ofDays(1), DataSize.ofBytes(256));
+
+    // every record takes 58 bytes, without compaction only four of them fit into the file
+    for (int i = 0; i < 10; i++) {
+      cut.put(ISBN, (METADATA + i).getBytes());
+    }
+    cut.put("9780321160768", METADATA.getBytes());
+    cut.close();
+
+    OpenLibraryMetadataCache restarted =
+        new OpenLibraryMetadataCache(location, Duration.ofDays(1), DataSize.ofBytes(256));
+
+    assertEquals(METADATA + 9, new String(restarted.get(ISBN).orElseThrow()));
+    assertEquals(METADATA, new String(restarted.get("9780321160768").orElseThrow()));
+  }
+
+  @Test
+  @DisplayName("shouldn't persist metadata when the file is used by another cache")
+  void shouldNotPersistMetadataWhenFileIsUsedByAnotherCache() throws IOException {
+    OpenLibraryMetadataCache cut = createCache(Duration.ofDays(1));
+    cut.put(ISBN, METADATA.getBytes());
+
+    OpenLibraryMetadataCache concurrentCache = createCache(Duration.ofDays(1));
+    concurrentCache.put("9780321160768", METADATA.getBytes());
+
+    assertTrue(concurrentCache.get(ISBN).isEmpty());
+    assertTrue(concurrentCache.get("9780321160768").isEmpty());
+
+    cut.close();
+    concurrentCache.close();
+
+    assertEquals(METADATA, new String(createCache(Duration.ofDays(1)).get(ISBN).orElseThrow()));
+  }
+
+  @Test
+  @DisplayName("should never return metadata when disabled")
+  void shouldNeverReturnMetadataWhenDisabled() {
+    OpenLibraryMetadataCache cut = OpenLibraryMetadataCache.disabled();
+
+    cut.put(ISBN, METADATA.getBytes());
+
+    assertTrue(cut.get(ISBN).isEmpty());
+  }
+
+  private OpenLibraryMetadataCache createCache(Duration timeToLive) throws IOException {
+    return new OpenLibraryMetadataCache(
+        tempDir.resolve("metadata.cache").toString(), timeToLive, DataSize.ofKilobytes(64));
+  }
+}
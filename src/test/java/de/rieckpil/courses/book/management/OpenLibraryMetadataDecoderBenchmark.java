@@ -0,0 +1,113 @@
+package de.rieckpil.courses.book.management;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares decoding a multi-bibkey OpenLibrary response via an {@link ObjectNode} tree with the
+ * token-streaming {@link OpenLibraryMetadataDecoder}. Run the main method, the GC profiler reports
+ * the allocated bytes per operation as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpenLibraryMetadataDecoderBenchmark {
+
+  private static final String TEMPLATE_ISBN = "9780596004651";
+
+  @Param({"1", "10", "50"})
+  private int bibkeys;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final OpenLibraryMetadataDecoder decoder = new OpenLibraryMetadataDecoder();
+
+  private byte[] response;
+  private Set<String> isbns;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(OpenLibraryMetadataDecoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+
+  @Setup
+  public void setup() throws IOException {
+    ObjectNode template =
+        (ObjectNode)
+            objectMapper.readTree(
+                getClass()
+                    .getClassLoader()
+                    .getResourceAsStream("stubs/openlibrary/success-" + TEMPLATE_ISBN + ".json"));
+
+    ObjectNode result = objectMapper.createObjectNode();
+    isbns = new LinkedHashSet<>();
+
+    for (int i = 0; i < bibkeys; i++) {
+      String isbn = String.valueOf(9780000000000L + i);
+      isbns.add(isbn);
+      result.set(isbn, template.get(TEMPLATE_ISBN));
+    }
+
+    response = objectMapper.writeValueAsString(result).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public void treeModel(Blackhole blackhole) throws IOException {
+    ObjectNode result = objectMapper.readValue(response, ObjectNode.class);
+
+    for (String isbn : isbns) {
+      blackhole.consume(convertToBook(isbn, result.get(isbn)));
+    }
+  }
+
+  @Benchmark
+  public void streaming(Blackhole blackhole) {
+    decoder.decode(response, isbns, (book, offset, length) -> blackhole.consume(book));
+  }
+
+  // the tree-based conversion both OpenLibrary clients used before the streaming decoder
+  private Book convertToBook(String isbn, JsonNode content) {
+    Book book = new Book();
+    book.setIsbn(isbn);
+    book.setThumbnailUrl(content.get("cover").get("small").asText());
+    book.setTitle(content.get("title").asText());
+    book.setAuthor(content.get("authors").get(0).get("name").asText());
+    book.setPublisher(content.get("publishers").get(0).get("name").asText("n.A."));
+    book.setPages(content.get("number_of_pages").asLong(0));
+    book.setDescription(content.get("notes") == null ? "n.A" : content.get("notes").asText("n.A."));
+    book.setGenre(
+        content.get("subjects") == null
+            ? "n.A"
+            : content.get("subjects").get(0).get("name").asText("n.A."));
+    return book;
+  }
+}
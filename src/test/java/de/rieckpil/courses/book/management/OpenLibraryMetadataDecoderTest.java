@@ -0,0 +1,78 @@
+package de.rieckpil.courses.book.management;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenLibraryMetadataDecoderTest {
+
+  private static final String ISBN = "9780596004651";
+
+  private final OpenLibraryMetadataDecoder cut = new OpenLibraryMetadataDecoder();
+
+  @Test
+  @DisplayName("should decode all stored fields of a book")
+  void shouldDecodeAllStoredFieldsOfBook() throws IOException {
+    byte[] response =
+      getClass().getClassLoader()
+        .getResourceAsStream("stubs/openlibrary/success-" + ISBN + ".json")
+        .readAllBytes();
+
+    List<Book> result = new ArrayList<>();
+    cut.decode(response, Set.of(ISBN), (book, offset, length) -> result.add(book));
+
+    assertEquals(1, result.size());
+    Book book = result.get(0);
+    assertEquals(ISBN, book.getIsbn());
+    assertEquals("Head first Java", book.getTitle());
+    assertEquals("https://covers.openlibrary.org/b/id/388761-S.jpg", book.getThumbnailUrl());
+    assertEquals("Kathy Sierra", book.getAuthor());
+    assertEquals(
+      "Your brain on Java--a learner's guide--Cover.Includes index.", book.getDescription());
+    assertEquals("Java (Computer program language)", book.getGenre());
+    assertEquals("O'Reilly", book.getPublisher());
+    assertEquals(619, book.getPages());
+  }
+
+  @Test
+  @DisplayName("should only decode requested bibkeys and report their raw metadata")
+  void shouldOnlyDecodeRequestedBibkeysAndReportTheirRawMetadata() {
+    String metadata = "{\"title\":\"Head second Java\",\"authors\":[{\"name\":\"Kathy Sierra\"}]}";
+    byte[] response =
+      ("{\"9780321160768\":{\"title\":\"Unrequested\"},\"" + ISBN + "\":" + metadata + "}")
+        .getBytes(StandardCharsets.UTF_8);
+
+    List<Book> result = new ArrayList<>();
+    List<String> rawMetadata = new ArrayList<>();
+    cut.decode(response, Set.of(ISBN), (book, offset, length) -> {
+      result.add(book);
+      rawMetadata.add(new String(response, offset, length, StandardCharsets.UTF_8));
+    });
+
+    assertEquals(1, result.size());
+    assertEquals("Head second Java", result.get(0).getTitle());
+    assertEquals(List.of(metadata), rawMetadata);
+    assertEquals("Head second Java", cut.decodeBook(ISBN, metadata.getBytes()).getTitle());
+  }
+
+  @Test
+  @DisplayName("should fall back to defaults when fields are missing")
+  void shouldFallBackToDefaultsWhenFieldsAreMissing() {
+    Book book = cut.decodeBook(ISBN, "{\"title\":\"Head second Java\",\"notes\":{\"value\":\"x\"}}".getBytes());
+
+    assertEquals("Head second Java", book.getTitle());
+    assertNull(book.getThumbnailUrl());
+    assertNull(book.getAuthor());
+    assertEquals("n.A.", book.getPublisher());
+    assertEquals(0, book.getPages());
+    assertEquals("n.A.", book.getDescription());
+    assertEquals("n.A", book.getGenre());
+  }
+}
@@ -0,0 +1,57 @@
+package de.rieckpil.courses.book.management;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenLibraryNegativeCacheTest {
+
+  private static final String ISBN = "9780596004651";
+  private static final DataSize CAPACITY = DataSize.ofKilobytes(64);
+
+  @TempDir private Path tempDir;
+
+  @Test
+  @DisplayName("should remember missing ISBN in memory")
+  void shouldRememberMissingIsbnInMemory() throws IOException {
+    OpenLibraryNegativeCache cut = new OpenLibraryNegativeCache(Duration.ofHours(1), 100, "", CAPACITY);
+
+    assertFalse(cut.isKnownMissing(ISBN));
+
+    cut.recordMissing(ISBN);
+
+    assertTrue(cut.isKnownMissing(ISBN));
+  }
+
+  @Test
+  @DisplayName("should remember missing ISBN across restarts when persisted")
+  void shouldRememberMissingIsbnAcrossRestartsWhenPersisted() throws IOException {
+    String location = tempDir.resolve("missing-isbns.cache").toString();
+
+    OpenLibraryNegativeCache cut = new OpenLibraryNegativeCache(Duration.ofHours(1), 100, location, CAPACITY);
+    cut.recordMissing(ISBN);
+    cut.close();
+
+    OpenLibraryNegativeCache restarted =
+        new OpenLibraryNegativeCache(Duration.ofHours(1), 100, location, CAPACITY);
+
+    assertTrue(restarted.isKnownMissing(ISBN));
+  }
+
+  @Test
+  @DisplayName("shouldn't remember missing ISBN once expired")
+  void shouldNotRememberMissingIsbnOnceExpired() throws IOException {
+    OpenLibraryNegativeCache cut = new OpenLibraryNegativeCache(Duration.ZERO, 100, "", CAPACITY);
+
+    cut.recordMissing(ISBN);
+
+    assertFalse(cut.isKnownMissing(ISBN));
+  }
+}
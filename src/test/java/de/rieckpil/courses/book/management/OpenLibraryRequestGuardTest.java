@@ -0,0 +1,77 @@
+package de.rieckpil.courses.book.management;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenLibraryRequestGuardTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  @DisplayName("should not open the circuit breaker when the local queue is full")
+  void shouldNotOpenCircuitBreakerWhenQueueIsFull() {
+    OpenLibraryRequestGuard cut =
+        new OpenLibraryRequestGuard(
+            meterRegistry,
+            1,
+            1,
+            1,
+            0,
+            Duration.ofSeconds(1),
+            1,
+            Duration.ofHours(1),
+            0,
+            Duration.ofMillis(1));
+
+    Sinks.One<String> pendingResponse = Sinks.one();
+    cut.guard(pendingResponse.asMono()).subscribe();
+
+    for (int i = 0; i < 5; i++) {
+      assertThrows(
+          OpenLibraryUnavailableException.class, () -> cut.guard(Mono.just("42")).block());
+    }
+
+    assertEquals(5, meterRegistry.get("open-library.requests.rejected").functionCounter().count());
+    assertEquals(0, meterRegistry.get("open-library.circuit-breaker.state").gauge().value());
+
+    pendingResponse.tryEmitValue("41");
+
+    assertEquals("42", cut.guard(Mono.just("42")).block(Duration.ofSeconds(1)));
+  }
+
+  @Test
+  @DisplayName("should neither lower the limit nor open the circuit breaker on client errors")
+  void shouldNotLowerLimitOnClientErrors() {
+    OpenLibraryRequestGuard cut =
+        new OpenLibraryRequestGuard(
+            meterRegistry,
+            20,
+            1,
+            200,
+            0,
+            Duration.ofSeconds(1),
+            1,
+            Duration.ofHours(1),
+            0,
+            Duration.ofMillis(1));
+
+    for (int i = 0; i < 5; i++) {
+      assertThrows(
+          WebClientResponseException.class,
+          () ->
+              cut.guard(Mono.error(WebClientResponseException.create(404, "Not Found", null, null, null)))
+                  .block());
+    }
+
+    assertEquals(20, meterRegistry.get("open-library.requests.limit").gauge().value());
+    assertEquals(0, meterRegistry.get("open-library.circuit-breaker.state").gauge().value());
+  }
+}
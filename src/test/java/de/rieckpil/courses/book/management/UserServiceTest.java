@@ -1,18 +1,97 @@
 package de.rieckpil.courses.book.management;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
 
   @Mock private UserRepository userRepository;
 
-  @InjectMocks private UserService cut;
+  private UserService cut;
+
+  @BeforeEach
+  void setup() {
+    cut = new UserService(userRepository, 100, Duration.ofHours(1));
+  }
 
   @Test
   void shouldIncludeCurrentDateTimeWhenCreatingNewUser() {}
+
+  @Test
+  @DisplayName("should resolve a known user from the cache without querying the database again")
+  void shouldResolveKnownUserFromCache() {
+    User duke = new User();
+    when(userRepository.findByNameAndEmail("duke", "duke@spring.io")).thenReturn(duke);
+
+    assertSame(duke, cut.getOrCreateUser("duke", "duke@spring.io"));
+    assertSame(duke, cut.getOrCreateUser("duke", "duke@spring.io"));
+
+    verify(userRepository, times(1)).findByNameAndEmail("duke", "duke@spring.io");
+    verifyNoMoreInteractions(userRepository);
+  }
+
+  @Test
+  @DisplayName("should create a missing user with an upsert and cache it")
+  void shouldCreateMissingUserWithUpsert() {
+    when(userRepository.insertIfAbsent(eq("duke"), eq("duke@spring.io"), any(LocalDateTime.class)))
+      .thenReturn(Optional.of(42L));
+
+    User result = cut.getOrCreateUser("duke", "duke@spring.io");
+
+    assertEquals(42L, result.getId());
+    assertEquals("duke", result.getName());
+    assertEquals("duke@spring.io", result.getEmail());
+    assertNotNull(result.getCreatedAt());
+
+    assertSame(result, cut.getOrCreateUser("duke", "duke@spring.io"));
+    verify(userRepository, times(1)).insertIfAbsent(any(), any(), any());
+    verify(userRepository, never()).save(any());
+  }
+
+  @Test
+  @DisplayName("should use the concurrently created user when the upsert inserts nothing")
+  void shouldUseConcurrentlyCreatedUserWhenUpsertInsertsNothing() {
+    User duke = new User();
+    when(userRepository.insertIfAbsent(eq("duke"), eq("duke@spring.io"), any(LocalDateTime.class)))
+      .thenReturn(Optional.empty());
+    when(userRepository.findByEmail("duke@spring.io")).thenReturn(duke);
+
+    assertSame(duke, cut.getOrCreateUser("duke", "duke@spring.io"));
+    assertSame(duke, cut.getOrCreateUser("duke", "duke@spring.io"));
+
+    verify(userRepository, times(1)).insertIfAbsent(any(), any(), any());
+    verify(userRepository, times(1)).findByEmail("duke@spring.io");
+  }
+
+  @Test
+  @DisplayName("should cache the user registered with another name under the requested name")
+  void shouldCacheUserRegisteredWithAnotherName() {
+    User duke = new User();
+    duke.setName("Duke");
+    duke.setEmail("duke@spring.io");
+    when(userRepository.insertIfAbsent(eq("duke"), eq("duke@spring.io"), any(LocalDateTime.class)))
+      .thenReturn(Optional.empty());
+    when(userRepository.findByEmail("duke@spring.io")).thenReturn(duke);
+
+    assertSame(duke, cut.getOrCreateUser("duke", "duke@spring.io"));
+    assertSame(duke, cut.findUser("duke", "duke@spring.io").orElseThrow());
+
+    verify(userRepository, times(1)).findByNameAndEmail("duke", "duke@spring.io");
+    verify(userRepository, times(1)).insertIfAbsent(any(), any(), any());
+  }
 }
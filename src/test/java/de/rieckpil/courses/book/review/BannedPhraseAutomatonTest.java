@@ -0,0 +1,44 @@
+package de.rieckpil.courses.book.review;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BannedPhraseAutomatonTest {
+
+  private final BannedPhraseAutomaton cut =
+    BannedPhraseAutomaton.compile(List.of("he", "she", "his", "hers", "Lorem ipsum"));
+
+  @Test
+  @DisplayName("should detect phrases anywhere in the text")
+  void shouldDetectPhrasesAnywhereInTheText() {
+    assertTrue(cut.containsBannedPhrase("ushers"));
+    assertTrue(cut.containsBannedPhrase("this is"));
+    assertTrue(cut.containsBannedPhrase("dolor sit Lorem ipsum"));
+  }
+
+  @Test
+  @DisplayName("should detect phrases regardless of their case")
+  void shouldDetectPhrasesRegardlessOfTheirCase() {
+    assertTrue(cut.containsBannedPhrase("LOREM IPSUM dolor"));
+    assertTrue(cut.containsBannedPhrase("uSHErs"));
+  }
+
+  @Test
+  @DisplayName("should follow failure links when a longer phrase breaks off")
+  void shouldFollowFailureLinksWhenLongerPhraseBreaksOff() {
+    assertTrue(cut.containsBannedPhrase("Lorem ipsLorem ipsum"));
+    assertFalse(cut.containsBannedPhrase("Lorem ipsLorem ips"));
+  }
+
+  @Test
+  @DisplayName("shouldn't detect anything in clean text or with empty dictionary")
+  void shouldNotDetectAnythingInCleanTextOrWithEmptyDictionary() {
+    assertFalse(cut.containsBannedPhrase("a clean review about testing"));
+    assertFalse(BannedPhraseAutomaton.compile(List.of()).containsBannedPhrase("she sells"));
+  }
+}
@@ -0,0 +1,47 @@
+package de.rieckpil.courses.book.review;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BannedPhraseDictionaryTest {
+
+  @TempDir private Path tempDir;
+
+  @Test
+  @DisplayName("should load phrases and skip comments")
+  void shouldLoadPhrasesAndSkipComments() throws IOException {
+    Path file = Files.writeString(tempDir.resolve("banned-phrases.txt"), "# comment\n\nspoiler\n");
+
+    BannedPhraseDictionary cut = new BannedPhraseDictionary(new FileSystemResource(file));
+
+    assertTrue(cut.getAutomaton().containsBannedPhrase("contains a SPOILER"));
+    assertFalse(cut.getAutomaton().containsBannedPhrase("a comment"));
+  }
+
+  @Test
+  @DisplayName("should swap in the new phrases when the file changes")
+  void shouldSwapInNewPhrasesWhenFileChanges() throws IOException {
+    Path file = Files.writeString(tempDir.resolve("banned-phrases.txt"), "spoiler\n");
+    BannedPhraseDictionary cut = new BannedPhraseDictionary(new FileSystemResource(file));
+    BannedPhraseAutomaton inFlight = cut.getAutomaton();
+
+    Files.writeString(file, "boring\n");
+    Files.setLastModifiedTime(
+      file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1_000));
+    cut.reloadIfModified();
+
+    assertTrue(cut.getAutomaton().containsBannedPhrase("a boring book"));
+    assertFalse(cut.getAutomaton().containsBannedPhrase("contains a spoiler"));
+    assertTrue(inFlight.containsBannedPhrase("contains a spoiler"));
+  }
+}
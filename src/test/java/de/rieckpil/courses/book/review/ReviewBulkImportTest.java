@@ -0,0 +1,362 @@
+package de.rieckpil.courses.book.review;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewBulkImportTest {
+
+  private static final String VALID_REVIEW = """
+    {"isbn":"42","userName":"duke","email":"duke@spring.io","reviewTitle":"Great",
+     "reviewContent":"I really recommend this book to whoever is interested in Java","rating":5}
+    """.replace("\n", "");
+
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+  @Mock private NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @Mock private ReviewModeration reviewModeration;
+
+  @Mock private ReviewRepository reviewRepository;
+
+  @Mock private ReviewStatisticsStore reviewStatisticsStore;
+
+  @Mock private JdbcTemplate plainJdbcTemplate;
+
+  @Mock private Connection connection;
+
+  @Mock private PreparedStatement insertReviews;
+
+  private ReviewBulkImport cut;
+
+  @BeforeEach
+  void setup() {
+    cut = createBulkImport(2);
+  }
+
+  private ReviewBulkImport createBulkImport(int chunkSize) {
+    return new ReviewBulkImport(
+      objectMapper,
+      Validation.buildDefaultValidatorFactory().getValidator(),
+      jdbcTemplate,
+      new TransactionTemplate(transactionManager),
+      new ReviewVerifier(BannedPhraseDictionary.of("Lorem ipsum", "shit")),
+      reviewModeration,
+      reviewRepository,
+      reviewStatisticsStore,
+      chunkSize);
+  }
+
+  @Test
+  @DisplayName("should reject invalid reviews and stop at malformed input of an NDJSON stream")
+  void shouldRejectInvalidReviewsAndStopAtMalformedInput() throws IOException {
+    String input = String.join("\n",
+      VALID_REVIEW.replace("\"rating\":5", "\"rating\":null"),
+      VALID_REVIEW.replace("\"isbn\":\"42\"", "\"isbn\":\"\""),
+      "{\"isbn\": ",
+      VALID_REVIEW);
+
+    List<JsonNode> results = importReviews(input, true).lines()
+      .map(this::readTree)
+      .toList();
+
+    assertEquals(3, results.size());
+    assertEquals("REJECTED", results.get(0).get("status").asText());
+    assertTrue(results.get(0).get("error").asText().startsWith("rating"));
+    assertEquals("REJECTED", results.get(1).get("status").asText());
+    assertEquals(1, results.get(1).get("index").asInt());
+    assertEquals("FAILED", results.get(2).get("status").asText());
+    assertEquals(2, results.get(2).get("index").asInt());
+    verifyNoInteractions(jdbcTemplate, reviewRepository, reviewStatisticsStore);
+  }
+
+  @Test
+  @DisplayName("should answer a JSON array with a JSON array of results")
+  void shouldAnswerJsonArrayWithJsonArray() throws IOException {
+    String input = "[" + String.join(",", VALID_REVIEW, VALID_REVIEW, VALID_REVIEW) + "]";
+
+    JsonNode results = readTree(importReviews(input, false));
+
+    assertTrue(results.isArray());
+    assertEquals(3, results.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i, results.get(i).get("index").asInt());
+      assertEquals("REJECTED", results.get(i).get("status").asText());
+      assertEquals("Book not found", results.get(i).get("error").asText());
+    }
+    verify(jdbcTemplate, times(2)).query(anyString(), anyMap(), any(RowCallbackHandler.class));
+    verifyNoInteractions(reviewRepository, reviewStatisticsStore);
+  }
+
+  @Test
+  @DisplayName("should reject a review of the wrong type and continue with the next one")
+  void shouldRejectReviewOfWrongTypeAndContinue() throws IOException {
+    String input = String.join("\n",
+      VALID_REVIEW.replace("\"isbn\":\"42\"", "\"isbn\":\"\""),
+      VALID_REVIEW.replace("\"rating\":5", "\"rating\":\"five\""),
+      VALID_REVIEW.replace("\"isbn\":\"42\"", "\"isbn\":\"\""));
+
+    List<JsonNode> results = importReviews(input, true).lines()
+      .map(this::readTree)
+      .toList();
+
+    assertEquals(3, results.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i, results.get(i).get("index").asInt());
+      assertEquals("REJECTED", results.get(i).get("status").asText());
+    }
+    assertEquals("rating has an invalid value", results.get(1).get("error").asText());
+  }
+
+  @Test
+  @DisplayName("should create the missing users of a chunk with one batch")
+  void shouldCreateMissingUsersOfChunkWithOneBatch() throws Exception {
+    cut = createBulkImport(3);
+    Map<String, Long> users = givenUsers(Map.of("duke@spring.io", 1L));
+    givenBooks(Map.of("42", 7L));
+    givenGeneratedReviewIds();
+
+    String input = String.join("\n",
+      VALID_REVIEW,
+      VALID_REVIEW.replace("duke", "alice"),
+      VALID_REVIEW.replace("duke", "alice"));
+
+    importReviews(input, true);
+
+    ArgumentCaptor<MapSqlParameterSource[]> batch = ArgumentCaptor.forClass(MapSqlParameterSource[].class);
+    verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO users"), batch.capture());
+    assertEquals(1, batch.getValue().length);
+    assertEquals("alice", batch.getValue()[0].getValue("name"));
+    assertEquals("alice@spring.io", batch.getValue()[0].getValue("email"));
+
+    verify(insertReviews, times(1)).setLong(6, 1L);
+    verify(insertReviews, times(2)).setLong(6, users.get("alice@spring.io"));
+  }
+
+  @Test
+  @DisplayName("should insert the reviews of a chunk with one batch and map the generated ids")
+  void shouldInsertReviewsOfChunkWithOneBatchAndMapGeneratedIds() throws Exception {
+    cut = createBulkImport(3);
+    givenUsers(Map.of("duke@spring.io", 1L));
+    givenBooks(Map.of("42", 7L));
+    givenGeneratedReviewIds();
+
+    String input = String.join("\n",
+      VALID_REVIEW,
+      VALID_REVIEW.replace("\"isbn\":\"42\"", "\"isbn\":\"43\""),
+      VALID_REVIEW);
+
+    List<JsonNode> results = importReviews(input, true).lines()
+      .map(this::readTree)
+      .toList();
+
+    assertEquals("PUBLISHED", results.get(0).get("status").asText());
+    assertEquals(100, results.get(0).get("reviewId").asLong());
+    assertEquals("Book not found", results.get(1).get("error").asText());
+    assertEquals("PUBLISHED", results.get(2).get("status").asText());
+    assertEquals(101, results.get(2).get("reviewId").asLong());
+
+    verify(insertReviews, times(2)).addBatch();
+    verify(insertReviews, times(1)).executeBatch();
+    verify(insertReviews, times(2)).setString(7, "PUBLISHED");
+  }
+
+  @Test
+  @DisplayName("should add the ratings of a chunk to the statistics once per book and rating")
+  void shouldAddRatingsOfChunkToStatisticsOncePerBookAndRating() throws IOException {
+    cut = createBulkImport(3);
+    givenUsers(Map.of("duke@spring.io", 1L));
+    givenBooks(Map.of("42", 7L));
+    givenGeneratedReviewIds();
+
+    String input = String.join("\n",
+      VALID_REVIEW,
+      VALID_REVIEW.replace("\"rating\":5", "\"rating\":3"),
+      VALID_REVIEW);
+
+    importReviews(input, true);
+
+    verify(reviewRepository).addToReviewStatistic(7L, 5, 2L);
+    verify(reviewRepository).addToReviewStatistic(7L, 3, 1L);
+    verify(reviewStatisticsStore).addRatings(7L, "42", 5, 2L);
+    verify(reviewStatisticsStore).addRatings(7L, "42", 3, 1L);
+    verifyNoMoreInteractions(reviewRepository, reviewStatisticsStore);
+  }
+
+  @Test
+  @DisplayName("should store reviews as pending without statistics when moderated asynchronously")
+  void shouldStoreReviewsAsPendingWhenModeratedAsynchronously() throws Exception {
+    when(reviewModeration.isAsynchronous()).thenReturn(true);
+    givenUsers(Map.of("duke@spring.io", 1L));
+    givenBooks(Map.of("42", 7L));
+    givenGeneratedReviewIds();
+
+    // not verified during the import, the moderation decides later
+    String input = VALID_REVIEW.replace("Java", "Java, Lorem ipsum");
+
+    List<JsonNode> results = importReviews(input, true).lines()
+      .map(this::readTree)
+      .toList();
+
+    assertEquals("PENDING", results.get(0).get("status").asText());
+    assertEquals(100, results.get(0).get("reviewId").asLong());
+    verify(insertReviews).setString(7, "PENDING");
+    verifyNoInteractions(reviewRepository, reviewStatisticsStore);
+  }
+
+  @Test
+  @DisplayName("should mark a failing chunk as failed and keep the chunks stored before it")
+  void shouldMarkFailingChunkAsFailedAndKeepEarlierChunks() throws IOException {
+    givenUsers(Map.of("duke@spring.io", 1L));
+    givenBooks(Map.of("42", 7L));
+    givenGeneratedReviewIds();
+    doAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection))
+      .doThrow(new DataIntegrityViolationException("duplicate key"))
+      .when(plainJdbcTemplate).execute(any(ConnectionCallback.class));
+
+    String input = String.join("\n", VALID_REVIEW, VALID_REVIEW, VALID_REVIEW, VALID_REVIEW);
+
+    List<JsonNode> results = importReviews(input, true).lines()
+      .map(this::readTree)
+      .toList();
+
+    assertEquals(4, results.size());
+    assertEquals("PUBLISHED", results.get(0).get("status").asText());
+    assertEquals("PUBLISHED", results.get(1).get("status").asText());
+    assertEquals("FAILED", results.get(2).get("status").asText());
+    assertEquals("FAILED", results.get(3).get("status").asText());
+
+    verify(transactionManager, times(1)).commit(any());
+    verify(transactionManager, times(1)).rollback(any());
+    verify(reviewRepository, times(1)).addToReviewStatistic(7L, 5, 2L);
+  }
+
+  @Test
+  @DisplayName("should write an empty JSON array for an empty import")
+  void shouldWriteEmptyArrayForEmptyImport() throws IOException {
+    assertEquals("[]", importReviews("[]", false));
+    verifyNoInteractions(jdbcTemplate, transactionManager);
+  }
+
+  private void givenBooks(Map<String, Long> bookIds) {
+    doAnswer(invocation -> {
+      RowCallbackHandler rows = invocation.getArgument(2);
+      for (Object isbn : (Collection<?>) invocation.<Map<String, ?>>getArgument(1).get("isbns")) {
+        if (bookIds.containsKey(isbn)) {
+          rows.processRow(row("isbn", (String) isbn, bookIds.get(isbn)));
+        }
+      }
+      return null;
+    }).when(jdbcTemplate).query(startsWith("SELECT id, isbn FROM books"), anyMap(), any(RowCallbackHandler.class));
+  }
+
+  /** Users created by the batch upsert get ids from 1000 on. */
+  private Map<String, Long> givenUsers(Map<String, Long> existingUsers) {
+    Map<String, Long> users = new HashMap<>(existingUsers);
+
+    doAnswer(invocation -> {
+      RowCallbackHandler rows = invocation.getArgument(2);
+      for (Object email : (Collection<?>) invocation.<Map<String, ?>>getArgument(1).get("emails")) {
+        if (users.containsKey(email)) {
+          rows.processRow(row("email", (String) email, users.get(email)));
+        }
+      }
+      return null;
+    }).when(jdbcTemplate).query(startsWith("SELECT id, email FROM users"), anyMap(), any(RowCallbackHandler.class));
+
+    lenient().when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO users"), any(MapSqlParameterSource[].class)))
+      .thenAnswer(invocation -> {
+        MapSqlParameterSource[] batch = invocation.getArgument(1);
+        for (MapSqlParameterSource user : batch) {
+          users.putIfAbsent((String) user.getValue("email"), 1000L + users.size());
+        }
+        return new int[batch.length];
+      });
+
+    return users;
+  }
+
+  /** Every executed batch generates the ids 100, 101, ... for its reviews. */
+  private void givenGeneratedReviewIds() {
+    try {
+      AtomicInteger batchedReviews = new AtomicInteger();
+
+      lenient().when(jdbcTemplate.getJdbcTemplate()).thenReturn(plainJdbcTemplate);
+      lenient().when(plainJdbcTemplate.execute(any(ConnectionCallback.class)))
+        .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+      lenient().when(connection.prepareStatement(startsWith("INSERT INTO reviews"), any(String[].class)))
+        .thenReturn(insertReviews);
+      lenient().doAnswer(invocation -> batchedReviews.incrementAndGet()).when(insertReviews).addBatch();
+      lenient().when(insertReviews.getGeneratedKeys())
+        .thenAnswer(invocation -> generatedKeys(batchedReviews.getAndSet(0)));
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private ResultSet generatedKeys(int count) throws SQLException {
+    AtomicInteger position = new AtomicInteger(-1);
+    ResultSet generatedKeys = mock(ResultSet.class);
+    when(generatedKeys.next()).thenAnswer(invocation -> position.incrementAndGet() < count);
+    lenient().when(generatedKeys.getLong(1)).thenAnswer(invocation -> 100L + position.get());
+    return generatedKeys;
+  }
+
+  private ResultSet row(String column, String value, Long id) throws SQLException {
+    ResultSet row = mock(ResultSet.class);
+    when(row.getString(column)).thenReturn(value);
+    when(row.getLong("id")).thenReturn(id);
+    return row;
+  }
+
+  private String importReviews(String input, boolean ndjson) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    cut.importReviews(
+      new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output, ndjson);
+    return output.toString(StandardCharsets.UTF_8);
+  }
+
+  private JsonNode readTree(String json) {
+    try {
+      return objectMapper.readTree(json);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -1,8 +1,6 @@
 package de.rieckpil.courses.book.review;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.rieckpil.courses.config.WebSecurityConfig;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -19,6 +18,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 
 import java.lang.reflect.Array;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
@@ -46,22 +47,33 @@ class ReviewControllerTest {
   @Test
   @DisplayName("should return twenty non-ordered reviews when no parameter is specified")
   void shouldReturnTwentyReviewsWithoutAnyOrderWhenNoParametersAreSpecified() throws Exception {
-    ArrayNode result = objectMapper.createArrayNode();
+    ReviewView review = new ReviewView(
+      1L, "Nice book!", "Can recommend reading it", 5, LocalDateTime.of(2020, 8, 11, 7, 45),
+      "42", "Java 14", null, "duke");
 
-    ObjectNode statistics = objectMapper.createObjectNode();
-    statistics.put("bookId", 1);
-    statistics.put("isbn", 42);
-    statistics.put("avg", 89.3);
-    statistics.put("ratings", 2);
+    when(reviewService.getAllReviews(20, "none", null))
+      .thenReturn(new ReviewPage(List.of(review), null));
 
-    result.add(statistics);
+    this.mockMvc
+      .perform(get("/api/books/reviews"))
+      .andExpect(status().isOk())
+      .andExpect(header().doesNotExist("Link"))
+      .andExpect(jsonPath("$.size()", Matchers.is(1)))
+      .andExpect(jsonPath("$[0].reviewId", Matchers.is(1)))
+      .andExpect(jsonPath("$[0].submittedBy", Matchers.is("duke")));
+  }
 
-    when(reviewService.getAllReviews(20, "none")).thenReturn(result);
+  @Test
+  @DisplayName("should link the next page of reviews when more reviews are available")
+  void shouldLinkNextPageOfReviewsWhenMoreReviewsAreAvailable() throws Exception {
+    when(reviewService.getAllReviews(1, "none", "abc"))
+      .thenReturn(new ReviewPage(List.of(), "def"));
 
     this.mockMvc
-      .perform(get("/api/books/reviews"))
+      .perform(get("/api/books/reviews").param("size", "1").param("cursor", "abc"))
       .andExpect(status().isOk())
-      .andExpect(jsonPath("$.size()", Matchers.is(1)));
+      .andExpect(header().string("Link", Matchers.containsString("cursor=def")))
+      .andExpect(header().string("Link", Matchers.endsWith("rel=\"next\"")));
   }
 
   @Test
@@ -86,6 +98,20 @@ class ReviewControllerTest {
     verify(reviewService).getReviewStatistics();
   }
 
+  @Test
+  @WithMockUser(username = "duke")
+  @DisplayName("should answer with not modified without computing the statistics when the ETag matches")
+  void shouldAnswerNotModifiedWhenStatisticsETagMatches() throws Exception {
+    when(reviewService.getReviewStatisticsETag()).thenReturn("\"statistics-a1b2c3d4-7\"");
+
+    this.mockMvc
+      .perform(get("/api/books/reviews/statistics")
+        .header(HttpHeaders.IF_NONE_MATCH, "\"statistics-a1b2c3d4-7\""))
+      .andExpect(status().isNotModified());
+
+    verify(reviewService, never()).getReviewStatistics();
+  }
+
   @Test
   @DisplayName("should create a new book review for authenticated users with valid payload")
   void shouldCreateNewBookReviewForAuthenticatedUserWithValidPayload() throws Exception {
@@ -114,6 +140,33 @@ class ReviewControllerTest {
       .andExpect(header().string("Location", Matchers.containsString("/books/42/reviews/84")));
   }
 
+  @Test
+  @DisplayName("should accept a new book review when it is moderated asynchronously")
+  void shouldAcceptNewBookReviewWhenItIsModeratedAsynchronously() throws Exception {
+    String requestBody = """
+      {
+        "reviewTitle": "Great book for learning Java!",
+        "reviewContent": "this book is one of the best I've seen when it comes to Java, it teaches you the fundamentals in a good way",
+        "rating": 4
+      }
+      """;
+
+    when(reviewService.createBookReview(eq("42"), any(BookReviewRequest.class),
+      eq("duke"), endsWith("spring.io")))
+      .thenReturn(84L);
+    when(reviewService.isModeratedAsynchronously()).thenReturn(true);
+
+    this.mockMvc
+      .perform(post("/api/books/{isbn}/reviews", 42)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(requestBody)
+        .with(jwt().jwt(builder -> builder
+          .claim("email", "duke@spring.io")
+          .claim("preferred_username", "duke"))))
+      .andExpect(status().isAccepted())
+      .andExpect(header().string("Location", Matchers.containsString("/books/42/reviews/84")));
+  }
+
   @Test
   @DisplayName("should reject book reviews for authenticated users with invalid payload")
   void shouldRejectNewBookReviewForAuthenticatedUsersWithInvalidPayload() throws Exception {
@@ -137,6 +190,29 @@ class ReviewControllerTest {
       .andDo(MockMvcResultHandlers.print());
   }
 
+  @Test
+  @DisplayName("should reject book reviews with a rating above the maximum")
+  void shouldRejectNewBookReviewWithRatingAboveMaximum() throws Exception {
+    String requestBody = """
+      {
+        "reviewTitle": "Great Java Book!",
+        "reviewContent": "I really like this book!",
+        "rating": 2147483647
+      }
+      """;
+
+    this.mockMvc
+      .perform(post("/api/books/{isbn}/reviews", 42)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(requestBody)
+        .with(jwt().jwt(builder -> builder
+          .claim("email", "duke@spring.io")
+          .claim("preferred_username", "duke"))))
+      .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(reviewService);
+  }
+
   @Test
   @DisplayName("shouldn't allow reviews deletion for authenticated users without moderator role")
   void shouldNotAllowDeletingReviewsWhenUserIsAuthenticatedWithoutModeratorRole()
@@ -0,0 +1,109 @@
+package de.rieckpil.courses.book.review;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import de.rieckpil.courses.book.management.Book;
+import de.rieckpil.courses.book.management.BookRepository;
+import de.rieckpil.courses.book.management.User;
+import de.rieckpil.courses.book.management.UserService;
+import org.mockito.stubbing.Answer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares resolving the book, the verification and the author of a new review one after another
+ * with forking them onto virtual threads. The book and user lookups are stubbed with a simulated
+ * database latency, zero latency shows the overhead of forking for cached books and authors. Run
+ * the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewCreationBenchmark {
+
+  private static final String ISBN = "1234567891234";
+
+  private static final BookReviewRequest REVIEW =
+    new BookReviewRequest(
+      "Great", "I really recommend this book to whoever is interested in advancing their career", 5);
+
+  @Param({"false", "true"})
+  private boolean forkLookups;
+
+  @Param({"0", "500", "2000"})
+  private long lookupLatencyMicros;
+
+  private ReviewService reviewService;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ReviewCreationBenchmark.class.getSimpleName()).build())
+      .run();
+  }
+
+  @Setup
+  public void setup() {
+    Book book = new Book();
+    book.setId(1L);
+    book.setIsbn(ISBN);
+    User user = new User();
+
+    BookRepository bookRepository = mock(BookRepository.class);
+    when(bookRepository.findByIsbn(ISBN)).thenAnswer(withLatency(book));
+
+    UserService userService = mock(UserService.class);
+    when(userService.findUser("duke", "duke@spring.io")).thenAnswer(withLatency(Optional.of(user)));
+    when(userService.getOrCreateUser("duke", "duke@spring.io")).thenAnswer(withLatency(user));
+
+    ReviewRepository reviewRepository = mock(ReviewRepository.class);
+    when(reviewRepository.save(any(Review.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    reviewService =
+      new ReviewService(
+        new ReviewVerifier(BannedPhraseDictionary.of("Lorem ipsum", "shit")),
+        userService,
+        bookRepository,
+        reviewRepository,
+        mock(ReviewStatisticsStore.class),
+        mock(ReviewModeration.class),
+        new TransactionTemplate(mock(PlatformTransactionManager.class)),
+        forkLookups);
+  }
+
+  @Benchmark
+  public Long createBookReview() {
+    return reviewService.createBookReview(ISBN, REVIEW, "duke", "duke@spring.io");
+  }
+
+  private <T> Answer<T> withLatency(T result) {
+    long latencyNanos = TimeUnit.MICROSECONDS.toNanos(lookupLatencyMicros);
+    return invocation -> {
+      if (latencyNanos > 0) {
+        LockSupport.parkNanos(latencyNanos);
+      }
+      return result;
+    };
+  }
+}
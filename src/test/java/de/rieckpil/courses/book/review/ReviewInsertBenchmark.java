@@ -0,0 +1,191 @@
+package de.rieckpil.courses.book.review;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Compares inserting reviews the way Hibernate does for identity columns, one statement and round
+ * trip per review, with batched inserts of ids drawn from the pooled {@code reviews_seq}. One
+ * review per transaction stands for {@link ReviewService#createBookReview}, a thousand for the
+ * bulk import. The schema is migrated by Flyway up to V006 (identity) or to the latest version
+ * (sequence). Requires Docker, run the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReviewInsertBenchmark {
+
+  private static final int BATCH_SIZE = 50;
+
+  private static final String INSERT_REVIEW =
+    "INSERT INTO reviews (title, content, rating, created_at, book_id, user_id) "
+      + "VALUES (?, ?, ?, ?, ?, ?)";
+
+  private static final String INSERT_REVIEW_WITH_ID =
+    "INSERT INTO reviews (title, content, rating, created_at, book_id, user_id, id) "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+  public enum IdGeneration {
+    IDENTITY,
+    POOLED_SEQUENCE
+  }
+
+  @Param({"IDENTITY", "POOLED_SEQUENCE"})
+  private IdGeneration idGeneration;
+
+  @Param({"1", "1000"})
+  private int reviewsPerTransaction;
+
+  private PostgreSQLContainer<?> database;
+
+  private Connection connection;
+
+  private long bookId;
+
+  private long userId;
+
+  private long nextId;
+
+  private long maxId;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ReviewInsertBenchmark.class.getSimpleName()).build())
+      .run();
+  }
+
+  @Setup
+  public void setup() throws SQLException {
+    database = new PostgreSQLContainer<>("postgres:17.2");
+    database.start();
+
+    Flyway.configure()
+      .dataSource(database.getJdbcUrl(), database.getUsername(), database.getPassword())
+      .target(idGeneration == IdGeneration.IDENTITY ? "6" : "latest")
+      .load()
+      .migrate();
+
+    connection =
+      DriverManager.getConnection(
+        database.getJdbcUrl(), database.getUsername(), database.getPassword());
+
+    try (Statement statement = connection.createStatement()) {
+      bookId = insertReturningId(statement,
+        "INSERT INTO books (title, isbn) VALUES ('Java 21', '1234567891234') RETURNING id");
+      userId = insertReturningId(statement,
+        "INSERT INTO users (name, email, created_at) VALUES ('Duke', 'duke@spring.io', now()) "
+          + "RETURNING id");
+    }
+
+    connection.setAutoCommit(false);
+  }
+
+  @TearDown
+  public void tearDown() throws SQLException {
+    connection.close();
+    database.stop();
+  }
+
+  @Benchmark
+  public long insertReviews() throws SQLException {
+    long lastId =
+      idGeneration == IdGeneration.IDENTITY ? insertOneByOne() : insertInBatches();
+    connection.commit();
+    return lastId;
+  }
+
+  private long insertOneByOne() throws SQLException {
+    long lastId = 0;
+
+    for (int i = 0; i < reviewsPerTransaction; i++) {
+      try (PreparedStatement statement =
+             connection.prepareStatement(INSERT_REVIEW, new String[] {"id"})) {
+        bindReview(statement, i);
+        statement.executeUpdate();
+
+        try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+          generatedKeys.next();
+          lastId = generatedKeys.getLong(1);
+        }
+      }
+    }
+
+    return lastId;
+  }
+
+  private long insertInBatches() throws SQLException {
+    long lastId = 0;
+
+    try (PreparedStatement statement = connection.prepareStatement(INSERT_REVIEW_WITH_ID)) {
+      for (int i = 0; i < reviewsPerTransaction; i++) {
+        lastId = nextId();
+        bindReview(statement, i);
+        statement.setLong(7, lastId);
+        statement.addBatch();
+
+        if ((i + 1) % BATCH_SIZE == 0) {
+          statement.executeBatch();
+        }
+      }
+
+      statement.executeBatch();
+    }
+
+    return lastId;
+  }
+
+  // mirrors the pooled optimizer, a sequence value is the upper end of a block of ids
+  private long nextId() throws SQLException {
+    if (nextId == 0 || nextId > maxId) {
+      try (Statement statement = connection.createStatement();
+           ResultSet sequence = statement.executeQuery("SELECT nextval('reviews_seq')")) {
+        sequence.next();
+        maxId = sequence.getLong(1);
+        nextId = maxId - BATCH_SIZE + 1;
+      }
+    }
+    return nextId++;
+  }
+
+  private void bindReview(PreparedStatement statement, int index) throws SQLException {
+    statement.setString(1, "Review " + index);
+    statement.setString(2, "I really recommend this book to whoever is interested in Java");
+    statement.setInt(3, index % 5 + 1);
+    statement.setObject(4, LocalDateTime.now());
+    statement.setLong(5, bookId);
+    statement.setLong(6, userId);
+  }
+
+  private static long insertReturningId(Statement statement, String sql) throws SQLException {
+    try (ResultSet resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+}
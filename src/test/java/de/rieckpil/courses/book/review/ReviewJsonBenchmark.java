@@ -0,0 +1,109 @@
+package de.rieckpil.courses.book.review;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares writing a page of reviews by first building an {@link ArrayNode} tree with writing them
+ * directly through the {@link ReviewJsonComponent} serializers. Run the main method, the GC
+ * profiler reports the allocated bytes per operation as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewJsonBenchmark {
+
+  @Param({"20", "100"})
+  private int pageSize;
+
+  private final ObjectMapper treeObjectMapper = new ObjectMapper();
+  private final ObjectMapper streamingObjectMapper =
+      new ObjectMapper()
+          .registerModule(
+              new SimpleModule().addSerializer(new ReviewJsonComponent.ReviewViewSerializer()));
+
+  private List<ReviewView> reviews;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(ReviewJsonBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+
+  @Setup
+  public void setup() {
+    reviews = new ArrayList<>(pageSize);
+    for (long i = 0; i < pageSize; i++) {
+      reviews.add(
+          new ReviewView(
+              i,
+              "Review " + i,
+              "Nice examples, but think this book is rather for beginners",
+              (int) (i % 5) + 1,
+              LocalDateTime.of(2020, 8, 11, 7, 45).plusMinutes(i),
+              "1234567891234",
+              "Spring Boot",
+              "http://localhost:8080/image.png",
+              "duke"));
+    }
+  }
+
+  @Benchmark
+  public void tree() throws IOException {
+    ArrayNode result = treeObjectMapper.createArrayNode();
+
+    for (ReviewView review : reviews) {
+      ObjectNode objectNode = treeObjectMapper.createObjectNode();
+      objectNode.put("reviewId", review.id());
+      objectNode.put("reviewContent", review.content());
+      objectNode.put("reviewTitle", review.title());
+      objectNode.put("rating", review.rating());
+      objectNode.put("bookIsbn", review.bookIsbn());
+      objectNode.put("bookTitle", review.bookTitle());
+      objectNode.put("bookThumbnailUrl", review.bookThumbnailUrl());
+      objectNode.put("submittedBy", review.submittedBy());
+      objectNode.put(
+          "submittedAt",
+          review.createdAt().atZone(ZoneId.of("Europe/Berlin")).toInstant().toEpochMilli());
+      result.add(objectNode);
+    }
+
+    treeObjectMapper.writeValue(OutputStream.nullOutputStream(), result);
+  }
+
+  @Benchmark
+  public void streaming() throws IOException {
+    streamingObjectMapper.writeValue(OutputStream.nullOutputStream(), reviews);
+  }
+}
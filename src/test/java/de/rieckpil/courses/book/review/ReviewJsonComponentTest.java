@@ -0,0 +1,73 @@
+package de.rieckpil.courses.book.review;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReviewJsonComponentTest {
+
+  private final ObjectMapper objectMapper =
+    new ObjectMapper()
+      .registerModule(
+        new SimpleModule()
+          .addSerializer(new ReviewJsonComponent.ReviewViewSerializer())
+          .addSerializer(new ReviewJsonComponent.ReviewStatisticSerializer()));
+
+  @Test
+  @DisplayName("should write review with book and user details")
+  void shouldWriteReviewWithBookAndUserDetails() throws Exception {
+    ReviewView review = new ReviewView(
+      42L, "Nice book!", "Can recommend reading it", 5, LocalDateTime.of(2020, 8, 11, 7, 45),
+      "1234567891234", "Java 14", "http://localhost:8080/image.png", "duke");
+
+    JsonNode result = objectMapper.readTree(objectMapper.writeValueAsString(List.of(review)));
+
+    assertEquals(42L, result.get(0).get("reviewId").asLong());
+    assertEquals("Can recommend reading it", result.get(0).get("reviewContent").asText());
+    assertEquals("Nice book!", result.get(0).get("reviewTitle").asText());
+    assertEquals(5, result.get(0).get("rating").asInt());
+    assertEquals("1234567891234", result.get(0).get("bookIsbn").asText());
+    assertEquals("Java 14", result.get(0).get("bookTitle").asText());
+    assertEquals("http://localhost:8080/image.png", result.get(0).get("bookThumbnailUrl").asText());
+    assertEquals("duke", result.get(0).get("submittedBy").asText());
+    assertEquals(1597124700000L, result.get(0).get("submittedAt").asLong());
+  }
+
+  @Test
+  @DisplayName("should write review statistic")
+  void shouldWriteReviewStatistic() throws Exception {
+    ReviewStatistic statistic = new ReviewStatistic() {
+      @Override
+      public Long getId() {
+        return 1L;
+      }
+
+      @Override
+      public Long getRatings() {
+        return 2L;
+      }
+
+      @Override
+      public String getIsbn() {
+        return "1234567891234";
+      }
+
+      @Override
+      public BigDecimal getAvg() {
+        return new BigDecimal("3.00");
+      }
+    };
+
+    assertEquals(
+      "[{\"bookId\":1,\"isbn\":\"1234567891234\",\"avg\":3.00,\"ratings\":2}]",
+      objectMapper.writeValueAsString(List.of(statistic)));
+  }
+}
@@ -0,0 +1,86 @@
+package de.rieckpil.courses.book.review;
+
+import java.util.List;
+
+import de.rieckpil.courses.book.management.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewModerationTest {
+
+  @Mock private ReviewRepository reviewRepository;
+
+  @Mock private ReviewStatisticsStore reviewStatisticsStore;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  private final ReviewVerifier reviewVerifier =
+    new ReviewVerifier(BannedPhraseDictionary.of("Lorem ipsum"));
+
+  private ReviewModeration cut;
+
+  @BeforeEach
+  void setup() {
+    cut = new ReviewModeration(
+      reviewRepository, reviewVerifier, reviewStatisticsStore, new TransactionTemplate(transactionManager),
+      true, 10, 2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    cut.shutdown();
+  }
+
+  @Test
+  @DisplayName("should publish good and reject bad pending reviews")
+  void shouldPublishGoodAndRejectBadPendingReviews() {
+    Book book = new Book();
+    book.setId(1L);
+
+    Review good = createPendingReview(
+      book, "I really recommend this book to whoever is interested in advancing their carrier");
+    Review bad = createPendingReview(book, "Lorem ipsum");
+
+    when(reviewRepository.lockPendingReviews(Limit.of(10))).thenReturn(List.of(good, bad));
+
+    cut.moderatePendingReviews();
+
+    assertEquals(ReviewStatus.PUBLISHED, good.getStatus());
+    assertEquals(ReviewStatus.REJECTED, bad.getStatus());
+    verify(reviewRepository, times(1)).addToReviewStatistic(1L, 4);
+    verify(reviewStatisticsStore, times(1)).addRating(book, 4);
+  }
+
+  @Test
+  @DisplayName("shouldn't poll pending reviews when moderating synchronously")
+  void shouldNotPollPendingReviewsWhenModeratingSynchronously() {
+    ReviewModeration synchronous = new ReviewModeration(
+      reviewRepository, reviewVerifier, reviewStatisticsStore, new TransactionTemplate(transactionManager),
+      false, 10, 2);
+
+    synchronous.moderatePendingReviews();
+
+    verifyNoInteractions(reviewRepository, reviewStatisticsStore, transactionManager);
+  }
+
+  private Review createPendingReview(Book book, String content) {
+    Review review = new Review();
+    review.setBook(book);
+    review.setContent(content);
+    review.setRating(4);
+    review.setStatus(ReviewStatus.PENDING);
+    return review;
+  }
+}
@@ -2,16 +2,21 @@ package de.rieckpil.courses.book.review;
 
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import javax.sql.DataSource;
 
+import de.rieckpil.courses.book.management.Book;
+import de.rieckpil.courses.book.management.User;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @DataJpaTest(
@@ -62,4 +67,41 @@ class ReviewRepositoryTest {
 
     cut.save(review);
   }
+
+  @Test
+  void shouldLoadReviewWithBookAndUserDetails() {
+    Book book = new Book();
+    book.setTitle("Java 14");
+    book.setIsbn("1234567891234");
+    book.setAuthor("duke");
+    book.setGenre("Software Engineering");
+    book.setThumbnailUrl("http://localhost:8080/image.png");
+    book.setDescription("New features of Java 14");
+    book.setPublisher("JavaPublisher");
+    book.setPages(42L);
+    testEntityManager.persist(book);
+
+    User user = new User();
+    user.setName("duke");
+    user.setEmail("duke@spring.io");
+    user.setCreatedAt(LocalDateTime.now());
+    testEntityManager.persist(user);
+
+    Review review = new Review();
+    review.setContent("Can recommend reading it");
+    review.setTitle("Nice book!");
+    review.setCreatedAt(LocalDateTime.now());
+    review.setRating(5);
+    review.setBook(book);
+    review.setUser(user);
+    testEntityManager.persistAndFlush(review);
+    testEntityManager.clear();
+
+    List<ReviewView> result = cut.findLatestReviews(Limit.of(20));
+
+    assertEquals(1, result.size());
+    assertEquals("1234567891234", result.get(0).bookIsbn());
+    assertEquals("Java 14", result.get(0).bookTitle());
+    assertEquals("duke", result.get(0).submittedBy());
+  }
 }
@@ -1,16 +1,23 @@
 package de.rieckpil.courses.book.review;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 import de.rieckpil.courses.book.management.Book;
 import de.rieckpil.courses.book.management.BookRepository;
 import de.rieckpil.courses.book.management.User;
 import de.rieckpil.courses.book.management.UserService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,12 +33,35 @@ class ReviewServiceTest {
 
   @Mock private ReviewRepository reviewRepository;
 
-  @InjectMocks private ReviewService cut;
+  @Mock private ReviewStatisticsStore reviewStatisticsStore;
+
+  @Mock private ReviewModeration reviewModeration;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  private ReviewService cut;
 
   private static final String EMAIL = "duke@spring.io";
   private static final String USERNAME = "duke";
   private static final String ISBN = "42";
 
+  @BeforeEach
+  void setup() {
+    cut = createReviewService(true);
+  }
+
+  private ReviewService createReviewService(boolean forkLookups) {
+    return new ReviewService(
+      reviewVerifier,
+      userService,
+      bookRepository,
+      reviewRepository,
+      reviewStatisticsStore,
+      reviewModeration,
+      new TransactionTemplate(transactionManager),
+      forkLookups);
+  }
+
   @Test
   @DisplayName("test dependencies shouldn't be null")
   void shouldNotBeNull() {
@@ -70,6 +100,59 @@ class ReviewServiceTest {
     verify(reviewRepository, times(0)).save(ArgumentMatchers.any(Review.class));
   }
 
+  @Test
+  @DisplayName("shouldn't create the author of a review with bad quality")
+  void shouldNotCreateAuthorOfReviewWithBadQuality() {
+    BookReviewRequest bookReviewRequest =
+      new BookReviewRequest("Title", "Bad review", 1);
+
+    when(bookRepository.findByIsbn(ISBN)).thenReturn(new Book());
+    when(reviewVerifier.doesMeetQualityStandards(bookReviewRequest.getReviewContent())).thenReturn(false);
+
+    assertThrows(
+      BadReviewQualityException.class, () ->
+        cut.createBookReview(ISBN, bookReviewRequest, USERNAME, EMAIL)
+    );
+    verify(userService, never()).getOrCreateUser(USERNAME, EMAIL);
+  }
+
+  @Test
+  @DisplayName("should store review of a known author when resolving sequentially")
+  void shouldStoreReviewOfKnownAuthorWhenResolvingSequentially() {
+    ReviewService sequential = createReviewService(false);
+    BookReviewRequest bookReviewRequest =
+      new BookReviewRequest("title", "good book", 5);
+    User duke = new User();
+
+    when(bookRepository.findByIsbn(ISBN)).thenReturn(new Book());
+    when(reviewVerifier.doesMeetQualityStandards(bookReviewRequest.getReviewContent())).thenReturn(true);
+    when(userService.getOrCreateUser(USERNAME, EMAIL)).thenReturn(duke);
+    when(reviewRepository.save(any(Review.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    sequential.createBookReview(ISBN, bookReviewRequest, USERNAME, EMAIL);
+
+    verify(reviewRepository).save(argThat(review -> review.getUser() == duke));
+    verify(userService, never()).findUser(USERNAME, EMAIL);
+  }
+
+  @Test
+  @DisplayName("should use the looked up author without creating it when forking the lookups")
+  void shouldUseLookedUpAuthorWhenForkingLookups() {
+    BookReviewRequest bookReviewRequest =
+      new BookReviewRequest("title", "good book", 5);
+    User duke = new User();
+
+    when(bookRepository.findByIsbn(ISBN)).thenReturn(new Book());
+    when(reviewVerifier.doesMeetQualityStandards(bookReviewRequest.getReviewContent())).thenReturn(true);
+    when(userService.findUser(USERNAME, EMAIL)).thenReturn(Optional.of(duke));
+    when(reviewRepository.save(any(Review.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    cut.createBookReview(ISBN, bookReviewRequest, USERNAME, EMAIL);
+
+    verify(reviewRepository).save(argThat(review -> review.getUser() == duke));
+    verify(userService, never()).getOrCreateUser(USERNAME, EMAIL);
+  }
+
   @Test
   @DisplayName("should store review when its quality is good and book is present")
   void shouldStoreReviewWhenReviewQualityIsGoodAndBookIsPresent() {
@@ -88,5 +171,133 @@ class ReviewServiceTest {
 
     Long result = cut.createBookReview(ISBN, bookReviewRequest, USERNAME, EMAIL);
     assertEquals(42, result);
+    verify(reviewRepository).addToReviewStatistic(null, 5);
+  }
+
+  @Test
+  @DisplayName("should store review as pending without verifying it when moderated asynchronously")
+  void shouldStoreReviewAsPendingWithoutVerifyingItWhenModeratedAsynchronously() {
+    BookReviewRequest bookReviewRequest =
+      new BookReviewRequest("title", "good book", 5);
+
+    when(bookRepository.findByIsbn(ISBN)).thenReturn(new Book());
+    when(reviewModeration.isAsynchronous()).thenReturn(true);
+    when(reviewRepository.save(any(Review.class))).thenAnswer(invocation -> {
+        Review reviewToSave = invocation.getArgument(0);
+        reviewToSave.setId(42L);
+        return reviewToSave;
+      }
+    );
+
+    Long result = cut.createBookReview(ISBN, bookReviewRequest, USERNAME, EMAIL);
+
+    assertEquals(42, result);
+    verify(reviewRepository).save(argThat(review -> review.getStatus() == ReviewStatus.PENDING));
+    verifyNoInteractions(reviewVerifier, reviewStatisticsStore);
+    verify(reviewRepository, never()).addToReviewStatistic(any(), anyInt());
+  }
+
+  @Test
+  @DisplayName("should update review statistics when review is deleted")
+  void shouldUpdateReviewStatisticsWhenReviewIsDeleted() {
+    Book book = new Book();
+    book.setId(1L);
+
+    Review review = new Review();
+    review.setId(42L);
+    review.setBook(book);
+    review.setRating(3);
+
+    when(reviewRepository.findByIdAndBookIsbn(42L, ISBN)).thenReturn(Optional.of(review));
+    when(reviewRepository.deleteReviewById(42L)).thenReturn(1);
+
+    cut.deleteReview(ISBN, 42L);
+
+    verify(reviewRepository).removeFromReviewStatistic(1L, 3);
+    verify(reviewStatisticsStore).removeRating(book, 3);
+  }
+
+  @Test
+  @DisplayName("shouldn't update review statistics when deleted review wasn't published")
+  void shouldNotUpdateReviewStatisticsWhenDeletedReviewWasNotPublished() {
+    Review review = new Review();
+    review.setId(42L);
+    review.setBook(new Book());
+    review.setRating(3);
+    review.setStatus(ReviewStatus.REJECTED);
+
+    when(reviewRepository.findByIdAndBookIsbn(42L, ISBN)).thenReturn(Optional.of(review));
+    when(reviewRepository.deleteReviewById(42L)).thenReturn(1);
+
+    cut.deleteReview(ISBN, 42L);
+
+    verify(reviewRepository, never()).removeFromReviewStatistic(any(), anyInt());
+  }
+
+  @Test
+  @DisplayName("shouldn't update review statistics when review was deleted concurrently")
+  void shouldNotUpdateReviewStatisticsWhenReviewWasDeletedConcurrently() {
+    Review review = new Review();
+    review.setId(42L);
+    review.setBook(new Book());
+    review.setRating(3);
+
+    when(reviewRepository.findByIdAndBookIsbn(42L, ISBN)).thenReturn(Optional.of(review));
+    when(reviewRepository.deleteReviewById(42L)).thenReturn(0);
+
+    cut.deleteReview(ISBN, 42L);
+
+    verify(reviewRepository, never()).removeFromReviewStatistic(any(), anyInt());
+  }
+
+  @Test
+  @DisplayName("should return cursor of the last review when page is full")
+  void shouldReturnCursorOfLastReviewWhenPageIsFull() {
+    ReviewView first = createReview(2L, LocalDateTime.of(2020, 8, 12, 8, 0));
+    ReviewView second = createReview(1L, LocalDateTime.of(2020, 8, 11, 8, 0));
+
+    when(reviewRepository.findLatestReviews(Limit.of(2)))
+      .thenReturn(List.of(first, second));
+
+    ReviewPage result = cut.getAllReviews(2, "none", null);
+
+    assertEquals(2, result.reviews().size());
+    assertEquals(ReviewCursor.of(second), ReviewCursor.decode(result.nextCursor()));
+  }
+
+  @Test
+  @DisplayName("should continue after the cursor and cap the page size")
+  void shouldContinueAfterTheCursorAndCapThePageSize() {
+    LocalDateTime createdAt = LocalDateTime.of(2020, 8, 11, 8, 0);
+    String cursor = new ReviewCursor(createdAt, 42L).encode();
+
+    when(reviewRepository.findLatestReviewsBefore(
+        createdAt, 42L, Limit.of(ReviewService.MAX_PAGE_SIZE)))
+      .thenReturn(List.of(createReview(41L, createdAt)));
+
+    ReviewPage result = cut.getAllReviews(1_000_000, "none", cursor);
+
+    assertEquals(1, result.reviews().size());
+    assertNull(result.nextCursor());
+  }
+
+  @Test
+  @DisplayName("should reject malformed cursor")
+  void shouldRejectMalformedCursor() {
+    assertThrows(
+      InvalidReviewCursorException.class, () -> cut.getAllReviews(20, "none", "not-a-cursor"));
+  }
+
+  @Test
+  @DisplayName("should throw exception when requested review doesn't exist")
+  void shouldThrowExceptionWhenRequestedReviewDoesNotExist() {
+    when(reviewRepository.findReviewViewByIdAndBookIsbn(42L, ISBN)).thenReturn(Optional.empty());
+
+    assertThrows(ReviewNotFoundException.class, () -> cut.getReviewById(ISBN, 42L));
+  }
+
+  private ReviewView createReview(Long id, LocalDateTime createdAt) {
+    return new ReviewView(
+      id, "title", "good book", 5, createdAt, ISBN, "Java 14", null, USERNAME);
   }
 }
@@ -0,0 +1,179 @@
+package de.rieckpil.courses.book.review;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import de.rieckpil.courses.book.management.Book;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewStatisticsStoreTest {
+
+  private static final String ISBN = "1234567891234";
+
+  @Mock private ReviewRepository reviewRepository;
+
+  @InjectMocks private ReviewStatisticsStore cut;
+
+  @Test
+  @DisplayName("should seed statistics from the database")
+  void shouldSeedStatisticsFromTheDatabase() {
+    when(reviewRepository.findRatingTotalsPerBook())
+      .thenReturn(List.of(ratingTotals(1L, 3L, 9L)));
+
+    assertFalse(cut.isSeeded());
+
+    cut.reconcile();
+
+    assertTrue(cut.isSeeded());
+
+    ReviewStatistic result = cut.getReviewStatistics().get(0);
+    assertEquals(1L, result.getId());
+    assertEquals(ISBN, result.getIsbn());
+    assertEquals(3L, result.getRatings());
+    assertEquals(new BigDecimal("3.00"), result.getAvg());
+  }
+
+  @Test
+  @DisplayName("should apply added and removed ratings")
+  void shouldApplyAddedAndRemovedRatings() {
+    Book book = new Book();
+    book.setId(1L);
+    book.setIsbn(ISBN);
+
+    cut.addRating(book, 5);
+    cut.addRating(book, 4);
+    cut.addRating(book, 1);
+    cut.removeRating(book, 1);
+
+    ReviewStatistic result = cut.getReviewStatistics().get(0);
+    assertEquals(2L, result.getRatings());
+    assertEquals(new BigDecimal("4.50"), result.getAvg());
+  }
+
+  @Test
+  @DisplayName("should correct drifted statistics when reconciling")
+  void shouldCorrectDriftedStatisticsWhenReconciling() {
+    Book book = new Book();
+    book.setId(1L);
+    book.setIsbn(ISBN);
+    cut.addRating(book, 5);
+
+    when(reviewRepository.findRatingTotalsPerBook()).thenReturn(List.of());
+
+    cut.reconcile();
+
+    assertTrue(cut.getReviewStatistics().isEmpty());
+  }
+
+  @Test
+  @DisplayName("should keep ratings added after the reconciling query")
+  void shouldKeepRatingsAddedAfterReconcilingQuery() {
+    Book book = new Book();
+    book.setId(1L);
+    book.setIsbn(ISBN);
+    cut.addRating(book, 4);
+
+    when(reviewRepository.findRatingTotalsPerBook()).thenReturn(List.of(ratingTotals(1L, 1L, 4L)));
+
+    cut.reconcile();
+    cut.addRating(book, 5);
+
+    ReviewStatistic result = cut.getReviewStatistics().get(0);
+    assertEquals(2L, result.getRatings());
+    assertEquals(new BigDecimal("4.50"), result.getAvg());
+  }
+
+  @Test
+  @DisplayName("should not count a rating twice that was applied while the query ran")
+  void shouldNotCountRatingTwiceThatWasAppliedWhileQueryRan() {
+    Book book = new Book();
+    book.setId(1L);
+    book.setIsbn(ISBN);
+    cut.addRating(book, 4);
+
+    when(reviewRepository.findRatingTotalsPerBook())
+      .thenAnswer(invocation -> {
+        // committed before the query read the table, so its result already contains the rating
+        cut.addRating(book, 5);
+        return List.of(ratingTotals(1L, 2L, 9L));
+      })
+      .thenReturn(List.of(ratingTotals(1L, 2L, 9L)));
+
+    cut.reconcile();
+
+    ReviewStatistic result = cut.getReviewStatistics().get(0);
+    assertEquals(2L, result.getRatings());
+    assertEquals(new BigDecimal("4.50"), result.getAvg());
+    verify(reviewRepository, times(2)).findRatingTotalsPerBook();
+  }
+
+  @Test
+  @DisplayName("should skip reconciling while the statistics keep changing")
+  void shouldSkipReconcilingWhileStatisticsKeepChanging() {
+    Book book = new Book();
+    book.setId(1L);
+    book.setIsbn(ISBN);
+
+    when(reviewRepository.findRatingTotalsPerBook()).thenAnswer(invocation -> {
+      cut.addRating(book, 5);
+      return List.of();
+    });
+
+    cut.reconcile();
+
+    assertFalse(cut.isSeeded());
+    assertEquals(3L, cut.getReviewStatistics().get(0).getRatings());
+  }
+
+  private ReviewRatingTotals ratingTotals(Long bookId, Long ratings, Long ratingSum) {
+    return new ReviewRatingTotals() {
+      @Override
+      public Long getBookId() {
+        return bookId;
+      }
+
+      @Override
+      public String getIsbn() {
+        return ISBN;
+      }
+
+      @Override
+      public Long getRatings() {
+        return ratings;
+      }
+
+      @Override
+      public Long getRatingSum() {
+        return ratingSum;
+      }
+    };
+  }
+
+  @Test
+  @DisplayName("should change the ETag with every change of the statistics")
+  void shouldChangeETagWithEveryChange() {
+    Book book = new Book();
+    book.setId(1L);
+    book.setIsbn(ISBN);
+
+    String initial = cut.getETag();
+    cut.addRating(book, 5);
+    String afterAdding = cut.getETag();
+    cut.removeRating(book, 5);
+
+    assertNotEquals(initial, afterAdding);
+    assertNotEquals(afterAdding, cut.getETag());
+    assertTrue(initial.startsWith("\"statistics-") && initial.endsWith("\""));
+  }
+}
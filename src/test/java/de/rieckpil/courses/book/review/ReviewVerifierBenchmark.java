@@ -0,0 +1,102 @@
+package de.rieckpil.courses.book.review;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the split-based review verification with the single-pass {@link ReviewVerifier} for
+ * reviews between 1KB and 64KB. Run the main method, the GC profiler reports the allocated bytes
+ * per operation as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewVerifierBenchmark {
+
+  private static final String[] VOCABULARY = {
+    "I", "really", "recommend", "this", "book", "to", "whoever", "is", "interested", "in",
+    "advancing", "their", "career", "the", "examples", "are", "good", "and", "chapters", "cover",
+    "testing", "Spring", "Boot", "applications", "with", "JUnit", "Mockito", "Testcontainers"
+  };
+
+  @Param({"1024", "8192", "65536"})
+  private int reviewLength;
+
+  private final ReviewVerifier reviewVerifier =
+      new ReviewVerifier(BannedPhraseDictionary.of("Lorem ipsum", "shit"));
+
+  private String review;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(ReviewVerifierBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    StringBuilder builder = new StringBuilder(reviewLength + 32);
+
+    // leaves out "I" and "good" so that every review is scanned to the end
+    while (builder.length() < reviewLength) {
+      String word = VOCABULARY[random.nextInt(VOCABULARY.length)];
+      if (!word.equals("I") && !word.equals("good")) {
+        builder.append(word).append(' ');
+      }
+    }
+
+    review = builder.substring(0, reviewLength);
+  }
+
+  @Benchmark
+  public boolean split() {
+    if (review.contains("Lorem ipsum")) {
+      return false;
+    }
+
+    String[] words = review.split(" ");
+
+    if (Arrays.stream(words).filter(s -> s.equalsIgnoreCase("I")).count() >= 5) {
+      return false;
+    }
+
+    if (Arrays.stream(words).filter(s -> s.equalsIgnoreCase("good")).count() >= 3) {
+      return false;
+    }
+
+    if (words.length <= 10) {
+      return false;
+    }
+
+    return !review.contains("shit");
+  }
+
+  @Benchmark
+  public boolean singlePass() {
+    return reviewVerifier.doesMeetQualityStandards(review);
+  }
+}
@@ -1,5 +1,8 @@
 package de.rieckpil.courses.book.review;
 
+import java.util.Arrays;
+import java.util.Locale;
+
 import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,10 +12,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvFileSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.ClassPathResource;
 
 import static de.rieckpil.courses.book.review.RandomReviewParameterResolverExtension.RandomReview;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -23,7 +29,8 @@ class ReviewVerifierTest {
 
   @BeforeEach
   void setup() {
-    reviewVerifier = new ReviewVerifier();
+    reviewVerifier = new ReviewVerifier(
+      new BannedPhraseDictionary(new ClassPathResource("banned-phrases.txt")));
   }
 
   @Test
@@ -35,6 +42,23 @@ class ReviewVerifierTest {
     assertFalse(result, "ReviewVerifier did not detect swear word");
   }
 
+  @Test
+  @DisplayName("should fail when review contains a banned phrase in a different case")
+  void shouldFailWhenReviewContainsBannedPhraseInDifferentCase() {
+    String review = "LOREM IPSUM dolor sit amet and some more words to make it long enough";
+
+    assertFalse(reviewVerifier.doesMeetQualityStandards(review));
+  }
+
+  @Test
+  @DisplayName("should fail when review contains a phrase of the given dictionary")
+  void shouldFailWhenReviewContainsPhraseOfTheGivenDictionary() {
+    ReviewVerifier verifier = new ReviewVerifier(BannedPhraseDictionary.of("spoiler alert"));
+    String review = "Spoiler Alert the butler did it but there are more than ten words here";
+
+    assertFalse(verifier.doesMeetQualityStandards(review));
+  }
+
   @Test
   @DisplayName("Should fail when review contains 'lorem ipsum'")
   void testLoremIpsum() {
@@ -84,4 +108,43 @@ class ReviewVerifierTest {
       .withFailMessage("ReviewVerifier didn't pass a good review")
       .isEqualTo(true);
   }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "",
+    "   ",
+    " leading space and then more than ten words in this review of a book",
+    "trailing spaces after more than ten words in this review of a nice book   ",
+    "double  spaces  count  as  empty  words  just  like  split  did  before",
+    "i I \u0131 \u0130 and some more words to get past the minimum word count",
+    "Good GOOD gOoD goods and some more words to get past the minimum word count",
+    "banned phrases matter even insideshitwords of an otherwise long enough review text",
+  })
+  @DisplayName("should return the same verdict as splitting the review into words")
+  void shouldReturnSameVerdictAsSplittingTheReviewIntoWords(String review) {
+    assertEquals(doesMeetQualityStandardsBySplitting(review), reviewVerifier.doesMeetQualityStandards(review));
+  }
+
+  // the original implementation, with case-insensitive banned phrases, the scanner has to match
+  private static boolean doesMeetQualityStandardsBySplitting(String review) {
+    if (review.toLowerCase(Locale.ROOT).contains("lorem ipsum")) {
+      return false;
+    }
+
+    String[] words = review.split(" ");
+
+    if (Arrays.stream(words).filter(s -> s.equalsIgnoreCase("I")).count() >= 5) {
+      return false;
+    }
+
+    if (Arrays.stream(words).filter(s -> s.equalsIgnoreCase("good")).count() >= 3) {
+      return false;
+    }
+
+    if (words.length <= 10) {
+      return false;
+    }
+
+    return !review.toLowerCase(Locale.ROOT).contains("shit");
+  }
 }
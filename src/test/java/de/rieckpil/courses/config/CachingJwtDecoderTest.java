@@ -0,0 +1,85 @@
+package de.rieckpil.courses.config;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingJwtDecoderTest {
+
+  private static final Instant NOW = Instant.parse("2026-10-17T10:00:00Z");
+
+  @Mock private JwtDecoder delegate;
+
+  private CachingJwtDecoder cut;
+
+  @BeforeEach
+  void setup() {
+    cut = new CachingJwtDecoder(delegate, 100, Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  @Test
+  @DisplayName("should decode a reused token only once")
+  void shouldDecodeReusedTokenOnlyOnce() {
+    Jwt jwt = createJwt("token", NOW.plusSeconds(300));
+    when(delegate.decode("token")).thenReturn(jwt);
+
+    assertSame(jwt, cut.decode("token"));
+    assertSame(jwt, cut.decode("token"));
+
+    verify(delegate, times(1)).decode("token");
+  }
+
+  @Test
+  @DisplayName("shouldn't cache tokens without expiry")
+  void shouldNotCacheTokensWithoutExpiry() {
+    Jwt jwt = createJwt("token", null);
+    when(delegate.decode("token")).thenReturn(jwt);
+
+    cut.decode("token");
+    cut.decode("token");
+
+    verify(delegate, times(2)).decode("token");
+  }
+
+  @Test
+  @DisplayName("shouldn't cache rejected tokens")
+  void shouldNotCacheRejectedTokens() {
+    when(delegate.decode("token")).thenThrow(new BadJwtException("Invalid signature"));
+
+    assertThrows(BadJwtException.class, () -> cut.decode("token"));
+    assertThrows(BadJwtException.class, () -> cut.decode("token"));
+
+    verify(delegate, times(2)).decode("token");
+  }
+
+  private Jwt createJwt(String token, Instant expiresAt) {
+    Jwt.Builder builder = Jwt.withTokenValue(token)
+      .header("alg", "RS256")
+      .claim("realm_access", Map.of("roles", List.of("moderator")))
+      .issuedAt(NOW.minusSeconds(60));
+
+    if (expiresAt != null) {
+      builder.expiresAt(expiresAt);
+    }
+
+    return builder.build();
+  }
+}
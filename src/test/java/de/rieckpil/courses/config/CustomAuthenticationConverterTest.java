@@ -0,0 +1,42 @@
+package de.rieckpil.courses.config;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CustomAuthenticationConverterTest {
+
+  private final CustomAuthenticationConverter cut = new CustomAuthenticationConverter(100);
+
+  @Test
+  @DisplayName("should map realm roles to interned authorities")
+  void shouldMapRealmRolesToInternedAuthorities() {
+    List<GrantedAuthority> first = authoritiesOf(createJwt("first", List.of("moderator", "user")));
+    List<GrantedAuthority> second = authoritiesOf(createJwt("second", List.of("moderator")));
+
+    assertEquals(2, first.size());
+    assertEquals("ROLE_moderator", first.get(0).getAuthority());
+    assertEquals("ROLE_user", first.get(1).getAuthority());
+    assertSame(first.get(0), second.get(0));
+  }
+
+  private List<GrantedAuthority> authoritiesOf(Jwt jwt) {
+    return List.copyOf(cut.convert(jwt).getAuthorities());
+  }
+
+  private Jwt createJwt(String token, List<String> roles) {
+    return Jwt.withTokenValue(token)
+      .header("alg", "RS256")
+      .claim("realm_access", Map.of("roles", roles))
+      .expiresAt(Instant.now().plusSeconds(300))
+      .build();
+  }
+}
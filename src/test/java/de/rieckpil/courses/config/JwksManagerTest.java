@@ -0,0 +1,102 @@
+package de.rieckpil.courses.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwksManagerTest {
+
+  @TempDir private Path directory;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  @DisplayName("should prefetch the keys at startup")
+  void shouldPrefetchKeysAtStartup() throws Exception {
+    JwksManager cut = createJwksManager(Duration.ZERO);
+    writeJwks("one");
+
+    cut.prefetch();
+
+    assertEquals(1, select(cut, "one").size());
+    assertEquals(1, meterRegistry.get("security.jwks.refresh").tag("outcome", "success").timer().count());
+    assertEquals(1.0, meterRegistry.get("security.jwks.keys").gauge().value());
+  }
+
+  @Test
+  @DisplayName("should refresh the keys when a token is signed with an unknown key")
+  void shouldRefreshKeysForUnknownKey() throws Exception {
+    JwksManager cut = createJwksManager(Duration.ZERO);
+    writeJwks("one");
+    cut.prefetch();
+
+    writeJwks("two");
+
+    assertEquals(1, select(cut, "two").size());
+    assertTrue(select(cut, "one").isEmpty());
+  }
+
+  @Test
+  @DisplayName("should keep serving the known keys while the refresh fails")
+  void shouldKeepServingKnownKeysWhileRefreshFails() throws Exception {
+    JwksManager cut = createJwksManager(Duration.ZERO);
+    writeJwks("one");
+    cut.prefetch();
+
+    Files.delete(directory.resolve("jwks.json"));
+
+    assertFalse(cut.refresh());
+    assertEquals(1, select(cut, "one").size());
+    assertEquals(1, meterRegistry.get("security.jwks.refresh").tag("outcome", "failure").timer().count());
+  }
+
+  @Test
+  @DisplayName("shouldn't refresh for unknown keys more often than the minimum refresh interval")
+  void shouldNotRefreshForUnknownKeysMoreOftenThanMinimumInterval() throws Exception {
+    JwksManager cut = createJwksManager(Duration.ofHours(1));
+    writeJwks("one");
+    cut.prefetch();
+
+    writeJwks("two");
+
+    assertTrue(select(cut, "two").isEmpty());
+    assertEquals(1, meterRegistry.get("security.jwks.refresh").tag("outcome", "success").timer().count());
+  }
+
+  private JwksManager createJwksManager(Duration minRefreshInterval) {
+    return new JwksManager(
+      "http://localhost:8888/auth/realms/spring",
+      directory.resolve("jwks.json").toUri().toString(),
+      minRefreshInterval,
+      Duration.ofSeconds(1),
+      new DefaultResourceLoader(),
+      meterRegistry);
+  }
+
+  private List<JWK> select(JwksManager cut, String keyId) {
+    return cut.get(new JWKSelector(new JWKMatcher.Builder().keyID(keyId).build()), null);
+  }
+
+  private void writeJwks(String keyId) throws JOSEException, IOException {
+    JWKSet jwks = new JWKSet(new RSAKeyGenerator(2048).keyID(keyId).generate());
+    Files.writeString(directory.resolve("jwks.json"), jwks.toString());
+  }
+}
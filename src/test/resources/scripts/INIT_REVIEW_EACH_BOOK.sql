@@ -6,3 +6,6 @@ INSERT INTO books (id, title, isbn, author, genre, thumbnail_url, description, p
 INSERT INTO reviews (title, content, rating, created_at, book_id, user_id) VALUES ('Nice book!', 'Can recommend reading it', 5, '2020-08-11T07:45:00.500+0200', 1, 1);
 INSERT INTO reviews (title, content, rating, created_at, book_id, user_id) VALUES ('Did not understand anything', 'To advanced for beginners', 1, '2020-08-11T07:45:00.500+0200', 2, 1);
 INSERT INTO reviews (title, content, rating, created_at, book_id, user_id) VALUES ('Too easy', 'Nice examples, but think this book is rather for beginners', 5, '2020-08-11T07:45:00.500+0200', 2, 1);
+
+INSERT INTO review_statistics (book_id, ratings, rating_sum, rating_histogram) VALUES (1, 1, 5, '{0,0,0,0,0,1}');
+INSERT INTO review_statistics (book_id, ratings, rating_sum, rating_histogram) VALUES (2, 2, 6, '{0,1,0,0,0,1}');